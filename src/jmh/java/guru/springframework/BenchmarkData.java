@@ -0,0 +1,38 @@
+package guru.springframework;
+
+import java.util.Random;
+
+// Deterministic contacts shared by the benchmarks
+final class BenchmarkData {
+    private static final String[] NAMES = {"John", "Jane", "Mary", "Peter", "Anna", "Paul", "Laura", "Mark", "Eva", "Tom"};
+    private static final String[] SURNAMES = {"Smith", "Doe", "Brown", "Miller", "Wilson", "Moore", "Taylor", "Clark"};
+    private static final String[] STREETS = {"Wall St.", "Main St.", "High St.", "Park Ave.", "Oak Rd."};
+
+    private BenchmarkData() {
+    }
+
+    static PhoneBook phoneBook(int size) {
+        return fill(new PhoneBook(), size);
+    }
+
+    static <T extends PhoneBook> T fill(T phoneBook, int size) {
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++) {
+            phoneBook.addContact(contact(i, random));
+        }
+        return phoneBook;
+    }
+
+    static AbstractContact contact(int index, Random random) {
+        if (index % 5 == 0) {
+            return new Organization("Shop" + index, STREETS[random.nextInt(STREETS.length)] + " " + index, phoneNumber(random));
+        }
+        return new Person(NAMES[random.nextInt(NAMES.length)], SURNAMES[random.nextInt(SURNAMES.length)] + index,
+                phoneNumber(random));
+    }
+
+    static String phoneNumber(Random random) {
+        return "+" + random.nextInt(10) + " (" + (100 + random.nextInt(900)) + ") " + (100 + random.nextInt(900))
+                + "-" + (1000 + random.nextInt(9000));
+    }
+}
@@ -0,0 +1,77 @@
+package guru.springframework;
+
+import java.util.Random;
+
+// Measures the memory retained per contact by PhoneBook, ColumnarPhoneBook and OffHeapPhoneBook; run with the record count as argument
+public final class FootprintReport {
+
+    private FootprintReport() {
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        // Built from fresh strings, as an import or a snapshot load does; the first book only warms up the JVM
+        importedPhoneBook(size);
+        ValuePool.setEnabled(false);
+        long before = usedHeap();
+        PhoneBook unpooled = importedPhoneBook(size);
+        long unpooledBytes = usedHeap() - before;
+        System.out.printf("PhoneBook          %8.1f bytes per record without value pool%n", (double) unpooledBytes / size);
+        unpooled = null;
+
+        ValuePool.setEnabled(true);
+        long counted = ValuePool.savedBytes();
+        before = usedHeap();
+        PhoneBook phoneBook = importedPhoneBook(size);
+        long objects = usedHeap() - before;
+        System.out.printf("PhoneBook          %8.1f bytes per record (contacts and indexes), %.1f saved by the value pool"
+                        + " (%.1f counted by the pool)%n", (double) objects / size, (double) (unpooledBytes - objects) / size,
+                (double) (ValuePool.savedBytes() - counted) / size);
+
+        Random random = new Random(size);
+        ColumnarPhoneBook columnar = new ColumnarPhoneBook();
+        before = usedHeap();
+        for (int i = 0; i < size; i++) {
+            columnar.addContact(BenchmarkData.contact(i, random));
+        }
+        long columns = usedHeap() - before;
+        System.out.printf("ColumnarPhoneBook  %8.1f bytes per record measured, %.1f estimated%n",
+                (double) columns / size, columnar.bytesPerRecord());
+
+        random = new Random(size);
+        OffHeapPhoneBook offHeap = new OffHeapPhoneBook();
+        before = usedHeap();
+        for (int i = 0; i < size; i++) {
+            offHeap.addContact(BenchmarkData.contact(i, random));
+        }
+        long heap = usedHeap() - before;
+        System.out.printf("OffHeapPhoneBook   %8.1f heap and %.1f direct bytes per record%n",
+                (double) heap / size, (double) offHeap.liveBytes() / size);
+
+        // Keep the books reachable until all were measured
+        System.out.println(phoneBook.count() + columnar.count() + offHeap.count() + " records");
+    }
+
+    private static PhoneBook importedPhoneBook(int size) {
+        PhoneBook phoneBook = new PhoneBook();
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++) {
+            AbstractContact generated = BenchmarkData.contact(i, random);
+            AbstractContact contact = AbstractContact.newContact(generated.getType());
+            for (String field : generated.getEditableFields()) {
+                contact.restoreField(field, new String(generated.getFieldValue(field).toCharArray()));
+            }
+            phoneBook.addContact(contact);
+        }
+        return phoneBook;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
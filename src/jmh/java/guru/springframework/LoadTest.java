@@ -0,0 +1,111 @@
+package guru.springframework;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Serves a generated book on localhost and drives it from many virtual threads for a while, then prints the request
+// rate and latency percentiles; run with the record count, the seconds to run, the number of concurrent clients
+// and the percentage of requests that run a literal search as arguments. The other requests get a contact by id.
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int searchPercent = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        if (System.getProperty(PhoneBookServer.NODELAY_PROPERTY) == null) {
+            System.setProperty(PhoneBookServer.NODELAY_PROPERTY, "true");
+        }
+
+        ConcurrentPhoneBook phoneBook = BenchmarkData.fill(new ConcurrentPhoneBook(), size);
+        try (PhoneBookServer server = PhoneBookServer.start(phoneBook, new InetSocketAddress("127.0.0.1", 0));
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build();
+            String base = "http://127.0.0.1:" + server.port();
+
+            run(client, base, size, clients, searchPercent, executor, System.nanoTime() + 2_000_000_000L); // Warm up
+            long start = System.nanoTime();
+            List<long[]> timings = run(client, base, size, clients, searchPercent, executor, start + seconds * 1_000_000_000L);
+            long elapsed = System.nanoTime() - start;
+
+            int requests = 0;
+            int failures = 0;
+            for (long[] clientTimings : timings) {
+                requests += clientTimings.length;
+                for (long nanos : clientTimings) {
+                    failures += nanos < 0 ? 1 : 0;
+                }
+            }
+            long[] all = new long[requests];
+            int next = 0;
+            for (long[] clientTimings : timings) {
+                for (long nanos : clientTimings) {
+                    all[next++] = Math.abs(nanos);
+                }
+            }
+            Arrays.sort(all);
+            System.out.printf("%d clients, %d contacts, %d%% searches: %.0f requests/s, %d failed, p50 %.0f us, p99 %.0f us, max %.0f us%n",
+                    clients, size, searchPercent, requests * 1_000_000_000.0 / elapsed, failures, percentile(all, 0.50),
+                    percentile(all, 0.99), percentile(all, 1.0));
+        }
+    }
+
+    // Latencies in nanos per client until the deadline, negative for requests that failed
+    private static List<long[]> run(HttpClient client, String base, int size, int clients, int searchPercent,
+                                    ExecutorService executor, long deadline) throws Exception {
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            futures.add(executor.submit(() -> {
+                long[] timings = new long[1024];
+                int count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    String path = random.nextInt(100) < searchPercent
+                            ? "/contacts?limit=10&q=Smith" + random.nextInt(size)
+                            : "/contacts/" + (1 + random.nextInt(size));
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+                    long before = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    }
+                    long nanos = System.nanoTime() - before;
+                    if (count == timings.length) {
+                        timings = Arrays.copyOf(timings, count * 2);
+                    }
+                    timings[count++] = status == 200 ? nanos : -nanos;
+                }
+                return Arrays.copyOf(timings, count);
+            }));
+        }
+        List<long[]> timings = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            timings.add(future.get());
+        }
+        return timings;
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1000.0;
+    }
+}
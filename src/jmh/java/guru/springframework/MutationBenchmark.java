@@ -0,0 +1,75 @@
+package guru.springframework;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// A baseline run at 1K and 100K contacts is kept in benchmarks/MutationBenchmark.json
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms8g", "-Xmx8g"})
+public class MutationBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    private PhoneBook phoneBook;
+    private Random random;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        phoneBook = BenchmarkData.phoneBook(size);
+        random = new Random(42);
+        next = size;
+    }
+
+    @Benchmark
+    public PhoneBook addContact() {
+        phoneBook.addContact(BenchmarkData.contact(next++, random));
+        return phoneBook;
+    }
+
+    // Removes a contact from the middle of the book and adds it back so the size stays the same
+    @Benchmark
+    public PhoneBook removeContact() {
+        AbstractContact contact = phoneBook.getContact(phoneBook.count() / 2);
+        phoneBook.removeContact(contact);
+        phoneBook.addContact(contact);
+        return phoneBook;
+    }
+
+    @Benchmark
+    public AbstractContact updateField() {
+        AbstractContact contact = phoneBook.getContact(random.nextInt(phoneBook.count()));
+        contact.updateField(contact.getEditableFields()[0], "Edited" + random.nextInt(1000));
+        return contact;
+    }
+
+    // One thousand edits of random contacts in a single call, to compare with as many updateField calls
+    @Benchmark
+    public List<FieldUpdate> applyBatch() {
+        List<FieldUpdate> batch = new ArrayList<>(1000);
+        for (int i = 0; i < 1000; i++) {
+            AbstractContact contact = phoneBook.getContact(random.nextInt(phoneBook.count()));
+            batch.add(new FieldUpdate(contact.getId(), contact.getEditableFields()[0], "Edited" + random.nextInt(1000)));
+        }
+        return phoneBook.applyBatch(batch);
+    }
+}
@@ -0,0 +1,61 @@
+package guru.springframework;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A baseline run at 1K and 100K contacts is kept in benchmarks/SearchBenchmark.json
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms8g", "-Xmx8g"})
+public class SearchBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    // With the cache every search after the first of an iteration is answered from cached results
+    @Param({"false", "true"})
+    boolean searchCache;
+
+    private PhoneBook phoneBook;
+
+    @Setup
+    public void setUp() {
+        phoneBook = BenchmarkData.phoneBook(size);
+        phoneBook.setSearchCacheEnabled(searchCache);
+    }
+
+    @Benchmark
+    public List<AbstractContact> literalSearch() {
+        return phoneBook.search("Smith1234");
+    }
+
+    @Benchmark
+    public List<AbstractContact> regexSearch() {
+        return phoneBook.search("^j.n.*smith12");
+    }
+
+    @Benchmark
+    public List<AbstractContact> fuzzySearch() {
+        return phoneBook.searchFuzzy("Smiht1234");
+    }
+
+    @Benchmark
+    public AbstractContact getContact() {
+        return phoneBook.getContact(size / 2);
+    }
+}
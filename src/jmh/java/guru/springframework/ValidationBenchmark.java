@@ -0,0 +1,46 @@
+package guru.springframework;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// validatePhoneNumber prints a message for invalid numbers, so it is only measured with valid ones; isValid also
+// gets an invalid one. A baseline run is kept in benchmarks/ValidationBenchmark.json.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ValidNumber {
+        @Param({"+0 (123) 456-789-9999", "123 456 789"})
+        String validNumber;
+    }
+
+    @State(Scope.Benchmark)
+    public static class AnyNumber {
+        @Param({"+0 (123) 456-789-9999", "123 456 789", "12--34"})
+        String phoneNumber;
+    }
+
+    @Benchmark
+    public String validatePhoneNumber(ValidNumber number) {
+        return AbstractContact.validatePhoneNumber(number.validNumber);
+    }
+
+    @Benchmark
+    public boolean isValid(AnyNumber number) {
+        return PhoneNumberValidator.isValid(number.phoneNumber);
+    }
+}
@@ -1,45 +1,167 @@
 package guru.springframework;
 
 import java.io.Serializable;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
 
 public abstract class AbstractContact implements Serializable {
-    protected LocalDateTime createdTime;
-    protected LocalDateTime lastEditTime;
+    private static volatile ContactClock clock = ContactClock.system();
+
+    // Epoch millis from the clock, turned into LocalDateTime in the system zone only when asked for
+    private long createdTime;
+    private volatile long lastEditTime;
+    private long id;
+    private transient volatile PhoneBook owner;
+    private int slot; // Position in the owner's ContactSlots
+    // Search text built on first use; an edit bumps textVersion so a text built from older values is never used
+    private transient volatile SearchText searchText;
+    private transient volatile int textVersion;
 
     public AbstractContact() {
-        this.createdTime = LocalDateTime.now();
-        this.lastEditTime = LocalDateTime.now();
+        this.createdTime = clock.millis();
+        this.lastEditTime = createdTime;
+    }
+
+    // For views that keep their times elsewhere and override createdMillis and lastEditMillis
+    AbstractContact(long createdTime, long lastEditTime) {
+        this.createdTime = createdTime;
+        this.lastEditTime = lastEditTime;
+    }
+
+    // Clock stamping contacts created or edited from now on
+    public static void setClock(ContactClock clock) {
+        AbstractContact.clock = Objects.requireNonNull(clock);
+    }
+
+    static long currentMillis() {
+        return clock.millis();
+    }
+
+    static LocalDateTime toLocalTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
     }
 
     public abstract String[] getEditableFields();
     public abstract void updateField(String field, String newValue);
     public abstract String getFieldValue(String field);
-    public abstract String getAllFieldsForSearch();
+    public abstract String getType();
+
+    // Concatenates the searchable fields, called only when the cached text is out of date
+    protected abstract String buildSearchText();
+
+    // Sets a field as stored, without validation, edit time update or index notification
+    abstract void restoreField(String field, String value);
+
+    // Creates an empty contact of the given type ("person" or "organization"), or null for an unknown type
+    static AbstractContact newContact(String type) {
+        switch (type) {
+            case "person":
+                return new Person();
+            case "organization":
+                return new Organization();
+            default:
+                return null;
+        }
+    }
 
     public LocalDateTime getCreatedTime() {
-        return createdTime;
+        return toLocalTime(createdMillis());
     }
 
     public LocalDateTime getLastEditTime() {
+        return toLocalTime(lastEditMillis());
+    }
+
+    // The stored epoch millis, which the change log and snapshots persist so they do not depend on the time zone
+    long createdMillis() {
+        return createdTime;
+    }
+
+    long lastEditMillis() {
         return lastEditTime;
     }
 
     protected void updateLastEditTime() {
-        this.lastEditTime = LocalDateTime.now();
+        this.lastEditTime = clock.millis();
+    }
+
+    void restoreTimes(long createdMillis, long lastEditMillis) {
+        this.createdTime = createdMillis;
+        this.lastEditTime = lastEditMillis;
+    }
+
+    // Stable identifier assigned by the owning PhoneBook, 0 while the contact is not in a book
+    public long getId() {
+        return id;
+    }
+
+    void attach(PhoneBook owner, long id) {
+        this.owner = owner;
+        this.id = id;
+    }
+
+    void detach() {
+        this.owner = null;
+    }
+
+    PhoneBook getOwner() {
+        return owner;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    public String getAllFieldsForSearch() {
+        return searchText().text;
+    }
+
+    // Search text with ASCII letters lower-cased, as compared by literal searches
+    String getNormalizedSearchText() {
+        return searchText().normalized;
+    }
+
+    private SearchText searchText() {
+        int version = textVersion;
+        SearchText cached = searchText;
+        if (cached == null || cached.version != version) {
+            String text = buildSearchText();
+            cached = new SearchText(version, text, TokenIndex.normalize(text));
+            searchText = cached;
+        }
+        return cached;
+    }
+
+    // Subclasses call this after changing a field outside updateField
+    protected void invalidateSearchText() {
+        textVersion++;
+    }
+
+    // Subclasses call this after changing a field so the owning book can keep its indexes in sync
+    protected void fieldUpdated(String field, String oldValue, String newValue) {
+        invalidateSearchText();
+        if (owner != null && !Objects.equals(oldValue, newValue)) {
+            owner.contactUpdated(this, field, oldValue, newValue);
+        }
     }
 
     public abstract void display();
 
     public static String validatePhoneNumber(String phoneNumber) {
-        String correctNumberRegexOne = "\\+?\\(?(\\w{2,}|\\d)\\)?((-|\\s)\\w{2,})*";
-        String correctNumberRegexTwo = "\\+?(\\w{2,}|\\d)(-|\\s)\\(?\\w{2,}\\)?((-|\\s)\\w{2,})*";
-
-        if (phoneNumber.matches(correctNumberRegexOne) || phoneNumber.matches(correctNumberRegexTwo)) {
+        if (PhoneNumberValidator.isValid(phoneNumber)) {
             return phoneNumber;
         } else {
             System.out.println("Wrong number format!");
             return "[no number]";
         }
     }
+
+    private record SearchText(int version, String text, String normalized) {
+    }
 }
@@ -0,0 +1,11 @@
+package guru.springframework;
+
+// Counters of a PhoneBook's search cache since the book was created
+public record CacheStats(long hits, long misses, long patternHits, long patternMisses, int cachedResults,
+                         int cachedPatterns) {
+
+    // Share of result lookups answered from the cache, 0 before the first lookup
+    public double hitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+}
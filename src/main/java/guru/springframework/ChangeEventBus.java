@@ -0,0 +1,249 @@
+package guru.springframework;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+// Publishes the changes of the books it listens to as ContactEvents through a lock-free ring buffer. A change
+// claims the next sequence with one atomic increment and stores its event in the slot of that sequence; a slot
+// holds an event once the event's own sequence matches, so no lock or separate publish flag is needed. Every
+// subscriber has a daemon thread that hands it all events available so far, up to maxBatch at a time, and
+// moves its cursor past them when the call returns. When a subscriber falls a whole ring behind, the change waits
+// for it (back-pressure), but only up to maxWaitMillis: changes are published while the book holds its write lock,
+// so a subscriber reading the book could otherwise never catch up. A subscriber still behind after that, or whose
+// thread died, is removed from the bus and receives nothing more; see Subscription.removed().
+public class ChangeEventBus implements PhoneBookListener, AutoCloseable {
+    static final int DEFAULT_CAPACITY = 8192;
+    static final int DEFAULT_MAX_BATCH = 1024;
+    static final long DEFAULT_MAX_WAIT_MILLIS = 100;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final int SPINS_BEFORE_PARK = 100;
+
+    private final AtomicReferenceArray<ContactEvent> ring;
+    private final int mask;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final AtomicLong claimed = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder removals = new LongAdder();
+    private volatile boolean closed;
+
+    public ChangeEventBus() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_BATCH);
+    }
+
+    public ChangeEventBus(int capacity, int maxBatch) {
+        this(capacity, maxBatch, DEFAULT_MAX_WAIT_MILLIS);
+    }
+
+    // The capacity must be a power of two
+    public ChangeEventBus(int capacity, int maxBatch, long maxWaitMillis) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.maxBatch = Math.max(maxBatch, 1);
+        this.maxWaitNanos = Math.max(maxWaitMillis, 0) * 1_000_000;
+    }
+
+    @Override
+    public void contactAdded(AbstractContact contact) {
+        String[] editableFields = contact.getEditableFields();
+        Map<String, String> fields = new LinkedHashMap<>(editableFields.length * 2);
+        for (String field : editableFields) {
+            fields.put(field, contact.getFieldValue(field));
+        }
+        Map<String, String> values = Collections.unmodifiableMap(fields);
+        publish(sequence -> new ContactEvent.Added(sequence, contact.getId(), contact.getType(), values));
+    }
+
+    @Override
+    public void contactUpdated(AbstractContact contact, String field, String oldValue, String newValue) {
+        publish(sequence -> new ContactEvent.FieldUpdated(sequence, contact.getId(), field, oldValue, newValue));
+    }
+
+    @Override
+    public void contactRemoved(AbstractContact contact) {
+        publish(sequence -> new ContactEvent.Removed(sequence, contact.getId()));
+    }
+
+    private void publish(LongFunction<ContactEvent> event) {
+        if (closed) {
+            return;
+        }
+        long sequence = claimed.getAndIncrement();
+        long wrapPoint = sequence - ring.length();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.cursor <= wrapPoint) {
+                waits.increment();
+                long deadline = System.nanoTime() + maxWaitNanos;
+                int spins = 0;
+                while (subscription.cursor <= wrapPoint && !subscription.closed) {
+                    if (System.nanoTime() - deadline >= 0) {
+                        remove(subscription);
+                    } else if (++spins < SPINS_BEFORE_PARK) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(10_000);
+                    }
+                }
+            }
+        }
+        ring.set((int) sequence & mask, event.apply(sequence));
+        for (Subscription subscription : subscriptions) {
+            if (subscription.idle) {
+                LockSupport.unpark(subscription.thread);
+            }
+        }
+    }
+
+    // Delivers the events published from now on in batches, in sequence order, on a thread of its own; a
+    // subscriber that throws keeps receiving later events
+    public Subscription subscribe(Consumer<List<ContactEvent>> subscriber) {
+        if (closed) {
+            throw new IllegalStateException("Event bus closed");
+        }
+        Subscription subscription = new Subscription(subscriber, claimed.get());
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    private void remove(Subscription subscription) {
+        subscription.removed = true;
+        subscription.closed = true;
+        if (subscriptions.remove(subscription)) {
+            removals.increment();
+        }
+        LockSupport.unpark(subscription.thread);
+    }
+
+    // Events published so far
+    public long published() {
+        return claimed.get();
+    }
+
+    // Changes that had to wait for a subscriber to free a slot
+    public long backPressureWaits() {
+        return waits.sum();
+    }
+
+    // Subscriptions removed because they fell behind for too long or their thread died
+    public long removedSubscriptions() {
+        return removals.sum();
+    }
+
+    // Stops every subscription after the batch it is delivering; later changes are not published
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private final Consumer<List<ContactEvent>> subscriber;
+        private final Thread thread;
+        private final LongAdder failures = new LongAdder();
+        // Next sequence to deliver, every earlier slot may be reused
+        private volatile long cursor;
+        private volatile boolean idle;
+        private volatile boolean closed;
+        private volatile boolean removed;
+
+        private Subscription(Consumer<List<ContactEvent>> subscriber, long cursor) {
+            this.subscriber = subscriber;
+            this.cursor = cursor;
+            this.thread = new Thread(this::deliver, "phonebook-events");
+            this.thread.setDaemon(true);
+        }
+
+        // An Error thrown by the subscriber ends the thread, so the subscription is removed rather than left for
+        // writers to wait on
+        private void deliver() {
+            try {
+                deliverUntilClosed();
+            } finally {
+                if (!closed) {
+                    remove(this);
+                }
+            }
+        }
+
+        private void deliverUntilClosed() {
+            List<ContactEvent> batch = new ArrayList<>();
+            while (!closed) {
+                long next = cursor;
+                ContactEvent event;
+                while (batch.size() < maxBatch && (event = ring.get((int) next & mask)) != null
+                        && event.sequence() == next) {
+                    batch.add(event);
+                    next++;
+                }
+                if (batch.isEmpty()) {
+                    idle = true;
+                    if (!available(next)) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                    continue;
+                }
+                try {
+                    subscriber.accept(List.copyOf(batch));
+                } catch (RuntimeException e) {
+                    failures.increment();
+                }
+                batch.clear();
+                cursor = next;
+            }
+        }
+
+        private boolean available(long sequence) {
+            ContactEvent event = ring.get((int) sequence & mask);
+            return event != null && event.sequence() == sequence;
+        }
+
+        // Events published but not yet delivered to this subscriber
+        public long lag() {
+            return claimed.get() - cursor;
+        }
+
+        // Batches whose delivery threw an exception
+        public long failures() {
+            return failures.sum();
+        }
+
+        // Whether the bus dropped this subscription because it fell a whole ring behind for longer than the wait,
+        // or because its thread died; it receives no further events
+        public boolean removed() {
+            return removed;
+        }
+
+        // Waits for the batch being delivered unless called from the subscriber itself
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
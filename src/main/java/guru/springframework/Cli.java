@@ -0,0 +1,307 @@
+package guru.springframework;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import com.google.gson.Gson;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Non-interactive entry point: runs one subcommand against the book kept in the --data directory, or against an
+// empty book in memory without it, and returns the exit status. Everything goes through one buffered writer that
+// is flushed at the end, as plain text or with --format json as one JSON object per line.
+public class Cli {
+    private static final Gson GSON = new Gson();
+
+    static class Options {
+        @Parameter(names = "--data", description = "Directory with the phone book snapshot and change log")
+        Path data;
+
+        @Parameter(names = "--format", description = "Output format: text or json")
+        String format = "text";
+
+        @Parameter(names = {"--help", "-h"}, help = true, description = "Show this help")
+        boolean help;
+    }
+
+    @Parameters(commandDescription = "Import contacts from CSV or JSON files, chosen by the file extension")
+    static class ImportCommand {
+        @Parameter(description = "<file>...", required = true)
+        List<Path> files = new ArrayList<>();
+
+        @Parameter(names = "--batch-size", description = "Rows validated together")
+        int batchSize = ContactImporter.DEFAULT_BATCH_SIZE;
+    }
+
+    @Parameters(commandDescription = "Print the contacts matching a query")
+    static class SearchCommand {
+        @Parameter(description = "<query>", required = true)
+        List<String> query = new ArrayList<>();
+
+        @Parameter(names = "--offset", description = "Matches to skip")
+        int offset;
+
+        @Parameter(names = "--limit", description = "Most matches to print")
+        int limit = Integer.MAX_VALUE;
+    }
+
+    @Parameters(commandDescription = "Print the number of contacts, or of those matching a query")
+    static class CountCommand {
+        @Parameter(description = "[query]")
+        List<String> query = new ArrayList<>();
+    }
+
+    @Parameters(commandDescription = "Print every contact, or write them to a CSV or JSON file")
+    static class ExportCommand {
+        @Parameter(names = "--output", description = "File to write, JSON for .json and CSV otherwise, gzip for .gz")
+        Path output;
+    }
+
+    @Parameters(commandDescription = "Serve the contacts of the given files over HTTP until stopped, see PhoneBookServer")
+    static class ServeCommand {
+        @Parameter(description = "[file]...")
+        List<Path> files = new ArrayList<>();
+
+        @Parameter(names = "--host", description = "Address to listen on")
+        String host = "127.0.0.1";
+
+        @Parameter(names = "--port", description = "Port to listen on, 0 for any free one")
+        int port = 8080;
+    }
+
+    @Parameters(commandDescription = "Time repeated searches and print latency percentiles")
+    static class BenchCommand {
+        @Parameter(description = "<query>...", required = true)
+        List<String> queries = new ArrayList<>();
+
+        @Parameter(names = "--iterations", description = "Timed searches per query")
+        int iterations = 1000;
+
+        @Parameter(names = "--warmup", description = "Untimed searches per query run first")
+        int warmup = 100;
+
+        @Parameter(names = "--no-cache", description = "Compute every search instead of answering from the cache")
+        boolean noCache;
+    }
+
+    public static int run(String[] args, PrintStream stdout, PrintStream stderr) {
+        Options options = new Options();
+        ImportCommand importCommand = new ImportCommand();
+        SearchCommand searchCommand = new SearchCommand();
+        CountCommand countCommand = new CountCommand();
+        ExportCommand exportCommand = new ExportCommand();
+        BenchCommand benchCommand = new BenchCommand();
+        ServeCommand serveCommand = new ServeCommand();
+        JCommander commander = JCommander.newBuilder()
+                .programName("phonebook")
+                .addObject(options)
+                .addCommand("import", importCommand)
+                .addCommand("search", searchCommand)
+                .addCommand("count", countCommand)
+                .addCommand("export", exportCommand)
+                .addCommand("bench", benchCommand)
+                .addCommand("serve", serveCommand)
+                .build();
+        try {
+            commander.parse(args);
+            if (!options.format.equals("text") && !options.format.equals("json")) {
+                throw new ParameterException("Unknown format: " + options.format);
+            }
+            if ("serve".equals(commander.getParsedCommand()) && options.data != null) {
+                throw new ParameterException("serve keeps the book in memory and does not take --data");
+            }
+        } catch (ParameterException e) {
+            stderr.println(e.getMessage());
+            usage(commander, stderr);
+            return 2;
+        }
+        if (options.help || commander.getParsedCommand() == null) {
+            usage(commander, stdout);
+            return options.help ? 0 : 2;
+        }
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8)));
+        boolean json = options.format.equals("json");
+        try (PhoneBookStorage storage = options.data == null ? null : PhoneBookStorage.open(options.data)) {
+            PhoneBook phoneBook = storage == null ? new PhoneBook() : storage.getPhoneBook();
+            switch (commander.getParsedCommand()) {
+                case "import":
+                    importFiles(phoneBook, importCommand, out, json);
+                    if (storage != null) {
+                        storage.checkpoint();
+                    }
+                    break;
+                case "search":
+                    search(phoneBook, searchCommand, out, json);
+                    break;
+                case "count":
+                    count(phoneBook, countCommand, out, json);
+                    break;
+                case "export":
+                    export(phoneBook, exportCommand, out, json);
+                    break;
+                case "serve":
+                    serve(serveCommand, out, json);
+                    break;
+                default:
+                    bench(phoneBook, benchCommand, out, json);
+                    break;
+            }
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            out.flush();
+            stderr.println("Failed: " + e.getMessage());
+            return 1;
+        } finally {
+            out.flush();
+        }
+    }
+
+    private static void usage(JCommander commander, PrintStream stream) {
+        StringBuilder usage = new StringBuilder();
+        commander.getUsageFormatter().usage(usage);
+        stream.print(usage);
+    }
+
+    private static void importFiles(PhoneBook phoneBook, ImportCommand command, PrintWriter out, boolean json)
+            throws IOException {
+        ContactImporter importer = new ContactImporter(phoneBook, command.batchSize);
+        for (Path file : command.files) {
+            ContactImporter.ImportResult result = importer.importFile(file);
+            if (json) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("file", file.toString());
+                line.put("imported", result.imported());
+                line.put("rejected", result.rejected());
+                line.put("elapsedMillis", result.elapsedNanos() / 1_000_000);
+                line.put("rowsPerSecond", Math.round(result.rowsPerSecond()));
+                out.println(GSON.toJson(line));
+            } else {
+                out.println(file + ": " + result);
+            }
+        }
+    }
+
+    private static void search(PhoneBook phoneBook, SearchCommand command, PrintWriter out, boolean json) {
+        String query = String.join(" ", command.query);
+        List<AbstractContact> results = phoneBook.search(query, command.offset, command.limit);
+        printContacts(results.iterator(), Math.max(command.offset, 0), out, json);
+    }
+
+    private static void count(PhoneBook phoneBook, CountCommand command, PrintWriter out, boolean json) {
+        int count = command.query.isEmpty() ? phoneBook.count() : phoneBook.countMatches(String.join(" ", command.query));
+        out.println(json ? GSON.toJson(Map.of("count", count)) : String.valueOf(count));
+    }
+
+    private static void export(PhoneBook phoneBook, ExportCommand command, PrintWriter out, boolean json)
+            throws IOException {
+        if (command.output == null) {
+            printContacts(phoneBook.iterator(0), 0, out, json);
+            return;
+        }
+        ContactExporter.ExportResult result = new ContactExporter(phoneBook).exportFile(command.output);
+        if (json) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("file", command.output.toString());
+            line.put("exported", result.exported());
+            line.put("bytes", result.bytes());
+            line.put("elapsedMillis", result.elapsedNanos() / 1_000_000);
+            out.println(GSON.toJson(line));
+        } else {
+            out.println(command.output + ": " + result);
+        }
+    }
+
+    // Contacts numbered from first + 1 in text, one object with the id, type and editable fields per line in JSON
+    private static void printContacts(Iterator<AbstractContact> contacts, int first, PrintWriter out, boolean json) {
+        int number = first;
+        while (contacts.hasNext()) {
+            AbstractContact contact = contacts.next();
+            number++;
+            if (json) {
+                out.println(GSON.toJson(ContactJson.toMap(contact)));
+            } else {
+                out.append(String.valueOf(number)).append(". ").append(contact.getAllFieldsForSearch()).println();
+            }
+        }
+    }
+
+    // Blocks until the process is stopped
+    private static void serve(ServeCommand command, PrintWriter out, boolean json) throws IOException {
+        // The process only serves from here on, so no other HttpServer can depend on the default
+        if (System.getProperty(PhoneBookServer.NODELAY_PROPERTY) == null) {
+            System.setProperty(PhoneBookServer.NODELAY_PROPERTY, "true");
+        }
+        ConcurrentPhoneBook phoneBook = new ConcurrentPhoneBook();
+        ImportCommand load = new ImportCommand();
+        load.files = command.files;
+        importFiles(phoneBook, load, out, json);
+        PhoneBookServer server = PhoneBookServer.start(phoneBook, new InetSocketAddress(command.host, command.port));
+        out.println(json ? GSON.toJson(Map.of("port", server.port())) : "Listening on port " + server.port());
+        out.flush();
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.close();
+        }
+    }
+
+    private static void bench(PhoneBook phoneBook, BenchCommand command, PrintWriter out, boolean json) {
+        phoneBook.setSearchCacheEnabled(!command.noCache);
+        for (String query : command.queries) {
+            int results = 0;
+            for (int i = 0; i < command.warmup; i++) {
+                results = phoneBook.search(query).size();
+            }
+            long[] nanos = new long[Math.max(command.iterations, 1)];
+            long start = System.nanoTime();
+            for (int i = 0; i < nanos.length; i++) {
+                long before = System.nanoTime();
+                results = phoneBook.search(query).size();
+                nanos[i] = System.nanoTime() - before;
+            }
+            double opsPerSecond = nanos.length * 1_000_000_000.0 / Math.max(System.nanoTime() - start, 1);
+            Arrays.sort(nanos);
+            if (json) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("query", query);
+                line.put("results", results);
+                line.put("iterations", nanos.length);
+                line.put("p50Micros", micros(nanos, 0.50));
+                line.put("p90Micros", micros(nanos, 0.90));
+                line.put("p99Micros", micros(nanos, 0.99));
+                line.put("maxMicros", micros(nanos, 1.0));
+                line.put("opsPerSecond", Math.round(opsPerSecond));
+                out.println(GSON.toJson(line));
+            } else {
+                out.println(String.format(Locale.ROOT,
+                        "%s: %d results, %d runs, p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us, %.0f ops/s",
+                        query, results, nanos.length, micros(nanos, 0.50), micros(nanos, 0.90), micros(nanos, 0.99),
+                        micros(nanos, 1.0), opsPerSecond));
+            }
+        }
+    }
+
+    // Value at the percentile of sorted timings, in microseconds
+    private static double micros(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1000.0;
+    }
+}
@@ -0,0 +1,300 @@
+package guru.springframework;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Phone book that keeps contacts column by column instead of as objects. Every field value is stored once in a
+// shared dictionary and rows hold int codes into it, times are epoch millis in long arrays, so a contact costs a
+// few dozen bytes plus its distinct values. Contacts are handed out as ContactView views that read and write
+// the columns. Rows stay in listing order with ascending ids; removing a contact only marks its row, see LiveRows.
+// The dictionary counts the rows using every value and drops a value, reusing its code, once none does.
+// It is not a PhoneBook subclass: it offers the ContactBook operations without indexes, listeners or storage, so it
+// cannot back PhoneBookStorage, Cli, PhoneBookServer or ConcurrentPhoneBook, and its views are not Person or
+// Organization instances.
+public class ColumnarPhoneBook extends ContactRecords implements ContactBook, Serializable {
+    static final String[] COLUMNS = {"name", "surname", "birthDate", "gender", "phoneNumber", "organizationName", "address"};
+    private static final byte PERSON = 0;
+    private static final byte ORGANIZATION = 1;
+    private static final String[] PERSON_FIELDS = {"name", "surname", "birthDate", "gender", "phoneNumber"};
+    private static final String[] ORGANIZATION_FIELDS = {"organizationName", "address", "phoneNumber"};
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private int[] references = new int[16]; // Rows using each code
+    private final List<Integer> freeCodes = new ArrayList<>();
+    private final LiveRows liveRows = new LiveRows();
+    private byte[] types = new byte[16];
+    private long[] ids = new long[16];
+    private long[] createdTimes = new long[16];
+    private long[] lastEditTimes = new long[16];
+    private int[][] columns = new int[COLUMNS.length][16];
+    private long nextId = 1;
+
+    public ColumnarPhoneBook() {
+        dictionary.add(""); // Code 0 is the empty value of fields a contact type does not have, it is never dropped
+        codes.put("", 0);
+    }
+
+    // Copies the contact's values into a new row; the book hands out its own views, not the given object
+    @Override
+    public void addContact(AbstractContact contact) {
+        if (liveRows.rows() == ids.length) {
+            grow();
+        }
+        int row = liveRows.rows();
+        liveRows.add();
+        types[row] = "person".equals(contact.getType()) ? PERSON : ORGANIZATION;
+        ids[row] = nextId++;
+        createdTimes[row] = contact.createdMillis();
+        lastEditTimes[row] = contact.lastEditMillis();
+        for (int column = 0; column < COLUMNS.length; column++) {
+            columns[column][row] = 0;
+        }
+        for (String field : contact.getEditableFields()) {
+            columns[column(field)][row] = code(contact.getFieldValue(field));
+        }
+    }
+
+    @Override
+    public AbstractContact getContact(int index) {
+        return index >= 0 && index < count() ? view(liveRows.rowOf(index)) : null;
+    }
+
+    // Contact with the given id, or null if there is none
+    @Override
+    public AbstractContact getContactById(long id) {
+        int row = rowOf(id);
+        return row < 0 ? null : view(row);
+    }
+
+    @Override
+    public int count() {
+        return liveRows.count();
+    }
+
+    @Override
+    public void removeContact(AbstractContact contact) {
+        if (!(contact instanceof ContactView view) || view.book != this) {
+            return; // Not part of this phone book
+        }
+        int row = rowOf(contact.getId());
+        if (row < 0) {
+            return;
+        }
+        for (int[] column : columns) {
+            release(column[row]);
+            column[row] = 0;
+        }
+        if (liveRows.remove(row)) {
+            compactRows();
+        }
+    }
+
+    // Same matching as PhoneBook.search, run over the columns with one reused buffer and matcher
+    @Override
+    public List<AbstractContact> search(String query) {
+        List<AbstractContact> results = new ArrayList<>();
+        Matcher matcher = Pattern.compile(query, Pattern.CASE_INSENSITIVE).matcher("");
+        StringBuilder text = new StringBuilder();
+        for (int row = 0; row < liveRows.rows(); row++) {
+            if (liveRows.isRemoved(row)) {
+                continue;
+            }
+            text.setLength(0);
+            appendSearchText(row, text);
+            if (matcher.reset(text).find()) {
+                results.add(view(row));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void listContacts() {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        StringBuilder text = new StringBuilder();
+        int number = 0;
+        for (int row = 0; row < liveRows.rows(); row++) {
+            if (liveRows.isRemoved(row)) {
+                continue;
+            }
+            text.setLength(0);
+            appendSearchText(row, text);
+            out.append(String.valueOf(++number)).append(". ").append(text).println();
+        }
+        out.flush();
+    }
+
+    // Heap taken by the columns and the dictionary divided by the number of contacts, estimated for a 64-bit JVM
+    // with compressed references
+    public double bytesPerRecord() {
+        long bytes = (long) ids.length * (1 + 8 + 8 + 8 + 4L * COLUMNS.length) + 4L * references.length;
+        for (String value : dictionary) {
+            if (value != null) {
+                bytes += 24 + 16 + value.length() // String, its byte array and Latin-1 content
+                        + 32 + 16; // Map entry and boxed code
+            }
+        }
+        return count() == 0 ? 0 : (double) bytes / count();
+    }
+
+    private ContactView view(int row) {
+        return new ContactView(this, ids[row], types[row] == PERSON ? "person" : "organization");
+    }
+
+    int rowOf(long id) {
+        int row = Arrays.binarySearch(ids, 0, liveRows.rows(), id);
+        return row < 0 || liveRows.isRemoved(row) ? -1 : row;
+    }
+
+    @Override
+    String[] fieldsOf(String type) {
+        return ("person".equals(type) ? PERSON_FIELDS : ORGANIZATION_FIELDS).clone();
+    }
+
+    @Override
+    String value(long id, String field) {
+        int row = rowOf(id);
+        int column = column(field);
+        return row < 0 || column < 0 ? "" : dictionary.get(columns[column][row]);
+    }
+
+    @Override
+    void set(long id, String field, String value, boolean edited) {
+        int row = rowOf(id);
+        int column = column(field);
+        if (row < 0 || column < 0) {
+            return;
+        }
+        int old = columns[column][row];
+        columns[column][row] = code(value);
+        release(old);
+        if (edited) {
+            lastEditTimes[row] = AbstractContact.currentMillis();
+        }
+    }
+
+    @Override
+    long createdMillis(long id) {
+        int row = rowOf(id);
+        return row < 0 ? 0 : createdTimes[row];
+    }
+
+    @Override
+    long lastEditMillis(long id) {
+        int row = rowOf(id);
+        return row < 0 ? 0 : lastEditTimes[row];
+    }
+
+    @Override
+    void restoreTimes(long id, long createdMillis, long lastEditMillis) {
+        int row = rowOf(id);
+        if (row >= 0) {
+            createdTimes[row] = createdMillis;
+            lastEditTimes[row] = lastEditMillis;
+        }
+    }
+
+    @Override
+    String searchTextOf(long id) {
+        int row = rowOf(id);
+        StringBuilder text = new StringBuilder();
+        if (row >= 0) {
+            appendSearchText(row, text);
+        }
+        return text.toString();
+    }
+
+    private void appendSearchText(int row, StringBuilder text) {
+        if (types[row] == PERSON) {
+            String phoneNumber = dictionary.get(columns[4][row]);
+            for (int column = 0; column < 4; column++) {
+                text.append(dictionary.get(columns[column][row])).append(' ');
+            }
+            text.append(phoneNumber.isEmpty() ? "[no number]" : phoneNumber);
+        } else {
+            text.append(dictionary.get(columns[5][row])).append(' ')
+                    .append(dictionary.get(columns[6][row])).append(' ')
+                    .append(dictionary.get(columns[4][row]));
+        }
+    }
+
+    private static int column(String field) {
+        for (int column = 0; column < COLUMNS.length; column++) {
+            if (COLUMNS[column].equals(field)) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    // Code of the value for one more row using it
+    private int code(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            if (freeCodes.isEmpty()) {
+                code = dictionary.size();
+                dictionary.add(value);
+                if (code == references.length) {
+                    references = Arrays.copyOf(references, code * 2);
+                }
+            } else {
+                code = freeCodes.remove(freeCodes.size() - 1);
+                dictionary.set(code, value);
+            }
+            codes.put(value, code);
+        }
+        if (code != 0) {
+            references[code]++;
+        }
+        return code;
+    }
+
+    // One row less uses the code
+    private void release(int code) {
+        if (code != 0 && --references[code] == 0) {
+            codes.remove(dictionary.get(code));
+            dictionary.set(code, null);
+            freeCodes.add(code);
+        }
+    }
+
+    // Moves the live rows to the front, keeping their order
+    private void compactRows() {
+        int target = 0;
+        for (int row = 0; row < liveRows.rows(); row++) {
+            if (liveRows.isRemoved(row)) {
+                continue;
+            }
+            types[target] = types[row];
+            ids[target] = ids[row];
+            createdTimes[target] = createdTimes[row];
+            lastEditTimes[target] = lastEditTimes[row];
+            for (int[] column : columns) {
+                column[target] = column[row];
+            }
+            target++;
+        }
+        liveRows.compacted();
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        createdTimes = Arrays.copyOf(createdTimes, capacity);
+        lastEditTimes = Arrays.copyOf(lastEditTimes, capacity);
+        for (int column = 0; column < columns.length; column++) {
+            columns[column] = Arrays.copyOf(columns[column], capacity);
+        }
+    }
+}
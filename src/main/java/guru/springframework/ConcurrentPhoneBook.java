@@ -0,0 +1,277 @@
+package guru.springframework;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// PhoneBook that can be shared between threads.
+// Point lookups (count, getContact, getContactById) are lock-free optimistic reads validated against a version
+// counter that is odd while a write is in progress; only a read that overlapped a write is retried under the
+// read lock. Searches and index lookups are not lock-free: they hold the read lock for their whole run, and the
+// search cache briefly locks its own monitor. Readers never wait for each other, and the lock does not let a
+// stream of readers starve a waiting writer, but adds and removals wait for every running search.
+// A field edit locks only its own contact while the value changes. Its index update is then queued, and applied
+// at once if the write lock is free; otherwise the thread holding the lock applies it when it lets go, so an edit
+// never waits for a search or for an edit of another contact. A search first applies the queued updates, so it
+// sees every edit that returned before it started. The updates of one contact are queued in the order they were
+// made, since the contact stays locked until its update is queued.
+// A batch edit reads the book under the read lock, edits each contact under its own lock only and then updates
+// the indexes under the write lock. Listeners run while the write lock is held, for a queued edit only once it is
+// applied and possibly on another thread.
+public class ConcurrentPhoneBook extends PhoneBook {
+    private transient ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private transient AtomicLong version = new AtomicLong();
+    private transient Queue<QueuedUpdate> queuedUpdates = new ConcurrentLinkedQueue<>();
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        lock = new ReentrantReadWriteLock();
+        version = new AtomicLong();
+        queuedUpdates = new ConcurrentLinkedQueue<>();
+    }
+
+    @Override
+    public void addContact(AbstractContact contact) {
+        write(() -> super.addContact(contact));
+    }
+
+    @Override
+    public void addContacts(Collection<? extends AbstractContact> batch) {
+        write(() -> super.addContacts(batch));
+    }
+
+    @Override
+    void restoreContact(AbstractContact contact, long id) {
+        write(() -> super.restoreContact(contact, id));
+    }
+
+    @Override
+    public void removeContact(AbstractContact contact) {
+        write(() -> super.removeContact(contact));
+    }
+
+    // Called while the contact is locked
+    @Override
+    void contactUpdated(AbstractContact contact, String field, String oldValue, String newValue) {
+        queuedUpdates.add(new QueuedUpdate(contact, field, oldValue, newValue));
+        tryApplyQueuedUpdates();
+    }
+
+    @Override
+    Map<AbstractContact, List<FieldUpdate>> validateBatch(List<FieldUpdate> updates, List<FieldUpdate> rejected) {
+        return sharedRead(() -> super.validateBatch(updates, rejected));
+    }
+
+    @Override
+    void indexBatch(List<BatchEdit> edits) {
+        write(() -> super.indexBatch(edits));
+    }
+
+    @Override
+    public void createIndex(String field, boolean sorted) {
+        write(() -> super.createIndex(field, sorted));
+    }
+
+    @Override
+    public void dropIndex(String field) {
+        write(() -> super.dropIndex(field));
+    }
+
+    @Override
+    public AbstractContact getContact(int index) {
+        return optimisticRead(() -> super.getContact(index));
+    }
+
+    @Override
+    public AbstractContact getContactById(long id) {
+        return optimisticRead(() -> super.getContactById(id));
+    }
+
+    @Override
+    public int count() {
+        return optimisticRead(super::count);
+    }
+
+    @Override
+    public List<AbstractContact> search(String query) {
+        return sharedRead(() -> super.search(query));
+    }
+
+    @Override
+    public List<AbstractContact> search(String query, int offset, int limit) {
+        return sharedRead(() -> super.search(query, offset, limit));
+    }
+
+    // The action runs under the read lock, so it must not add or remove contacts; its field edits are queued and
+    // applied once the search is done
+    @Override
+    public void forEachMatch(String query, Predicate<? super AbstractContact> action) {
+        sharedRead(() -> {
+            super.forEachMatch(query, action);
+            return null;
+        });
+    }
+
+    @Override
+    public int countMatches(String query) {
+        return sharedRead(() -> super.countMatches(query));
+    }
+
+    @Override
+    public List<AbstractContact> searchPrefix(String prefix) {
+        return sharedRead(() -> super.searchPrefix(prefix));
+    }
+
+    @Override
+    public List<AbstractContact> searchFuzzy(String query, int maxDistance) {
+        return sharedRead(() -> super.searchFuzzy(query, maxDistance));
+    }
+
+    @Override
+    public List<AbstractContact> findBy(String field, String value) {
+        return sharedRead(() -> super.findBy(field, value));
+    }
+
+    @Override
+    public List<AbstractContact> findRange(String field, String from, String to) {
+        return sharedRead(() -> super.findRange(field, from, to));
+    }
+
+    @Override
+    public List<AbstractContact> findByPhone(String phoneNumber) {
+        return sharedRead(() -> super.findByPhone(phoneNumber));
+    }
+
+    @Override
+    public List<AbstractContact> findByPhonePrefix(String prefix) {
+        return sharedRead(() -> super.findByPhonePrefix(prefix));
+    }
+
+    @Override
+    public void listContacts() {
+        sharedRead(() -> {
+            super.listContacts();
+            return null;
+        });
+    }
+
+    @Override
+    public void listContacts(int offset, int limit) {
+        sharedRead(() -> {
+            super.listContacts(offset, limit);
+            return null;
+        });
+    }
+
+    @Override
+    public List<AbstractContact> page(int offset, int limit) {
+        return sharedRead(() -> super.page(offset, limit));
+    }
+
+    @Override
+    List<AbstractContact> readPage(int offset, int limit) {
+        return sharedRead(() -> super.readPage(offset, limit));
+    }
+
+    // Streams and iterators work on a copy taken under the read lock, so the book may change meanwhile
+    @Override
+    public Stream<AbstractContact> stream() {
+        return page(0, Integer.MAX_VALUE).stream();
+    }
+
+    @Override
+    public Iterator<AbstractContact> iterator(int offset) {
+        return page(offset, Integer.MAX_VALUE).iterator();
+    }
+
+    @Override
+    public void writeSnapshot(Path file) throws IOException {
+        lock.readLock().lock();
+        try {
+            super.writeSnapshot(file);
+        } finally {
+            lock.readLock().unlock();
+            tryApplyQueuedUpdates();
+        }
+    }
+
+    private void write(Runnable writer) {
+        lock.writeLock().lock();
+        version.incrementAndGet();
+        try {
+            applyQueuedUpdates();
+            writer.run();
+        } finally {
+            version.incrementAndGet();
+            lock.writeLock().unlock();
+        }
+        tryApplyQueuedUpdates();
+    }
+
+    // Must hold the write lock; updates of contacts removed since their edit are dropped
+    private void applyQueuedUpdates() {
+        for (QueuedUpdate update = queuedUpdates.poll(); update != null; update = queuedUpdates.poll()) {
+            if (update.contact().getOwner() == this) {
+                super.contactUpdated(update.contact(), update.field(), update.oldValue(), update.newValue());
+            }
+        }
+    }
+
+    // Applies the queued updates unless another thread, or a read of this thread, holds the lock; that holder
+    // calls this again once it lets go, and checks the queue only after releasing, so no update is left behind
+    private void tryApplyQueuedUpdates() {
+        while (!queuedUpdates.isEmpty() && lock.writeLock().tryLock()) {
+            version.incrementAndGet();
+            try {
+                applyQueuedUpdates();
+            } finally {
+                version.incrementAndGet();
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private <T> T optimisticRead(Supplier<T> reader) {
+        long before = version.get();
+        if ((before & 1) == 0) {
+            try {
+                T result = reader.get();
+                VarHandle.acquireFence(); // Keep the reads above from moving past the version check
+                if (version.get() == before) {
+                    return result;
+                }
+            } catch (RuntimeException ignored) {
+                // Saw a write half done, read again under the lock
+            }
+        }
+        return sharedRead(reader);
+    }
+
+    private <T> T sharedRead(Supplier<T> reader) {
+        if (!queuedUpdates.isEmpty() && lock.getReadHoldCount() == 0) {
+            write(() -> { }); // Waits for the running searches, so the indexes have every edit made before this read
+        }
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+            tryApplyQueuedUpdates();
+        }
+    }
+
+    private record QueuedUpdate(AbstractContact contact, String field, String oldValue, String newValue) {
+    }
+}
@@ -0,0 +1,27 @@
+package guru.springframework;
+
+import java.util.List;
+
+// What every contact store offers, so code written against it runs on PhoneBook as well as on the compact
+// ColumnarPhoneBook and OffHeapPhoneBook. Only PhoneBook adds indexed lookups, listeners, storage and the
+// ConcurrentPhoneBook subclass. The compact stores copy an added contact into a record and hand out ContactView
+// flyweights, not the added object and not Person or Organization instances; check getType() rather than the class.
+public interface ContactBook {
+
+    void addContact(AbstractContact contact);
+
+    void removeContact(AbstractContact contact);
+
+    // Contact at the 0-based listing position, or null if there is none
+    AbstractContact getContact(int index);
+
+    // Contact with the given id, or null if there is none
+    AbstractContact getContactById(long id);
+
+    int count();
+
+    // Contacts whose search text matches the case-insensitive regex query, in listing order
+    List<AbstractContact> search(String query);
+
+    void listContacts();
+}
@@ -0,0 +1,49 @@
+package guru.springframework;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Source of the current time for contact created and last edit times, in epoch milliseconds
+@FunctionalInterface
+public interface ContactClock {
+    long millis();
+
+    static ContactClock system() {
+        return System::currentTimeMillis;
+    }
+
+    // Clock read by a daemon thread every resolutionMillis; reading it is one volatile load, at the price of times
+    // lagging up to resolutionMillis behind, which suits bulk imports and edits
+    static ContactClock coarse(long resolutionMillis) {
+        if (resolutionMillis <= 0) {
+            throw new IllegalArgumentException("Resolution must be positive: " + resolutionMillis);
+        }
+        return new Coarse(resolutionMillis);
+    }
+
+    final class Coarse implements ContactClock, AutoCloseable {
+        private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "contact-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private volatile long now = System.currentTimeMillis();
+
+        private Coarse(long resolutionMillis) {
+            ticker.scheduleAtFixedRate(() -> now = System.currentTimeMillis(),
+                    resolutionMillis, resolutionMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public long millis() {
+            return now;
+        }
+
+        // Stops the ticker; the clock keeps returning the last time it read
+        @Override
+        public void close() {
+            ticker.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package guru.springframework;
+
+import java.util.Map;
+
+// Change of a PhoneBook as published by ChangeEventBus. Events carry copies of the values, so they stay valid
+// however the contact changes later; sequence numbers grow by one per event of a bus.
+public sealed interface ContactEvent {
+    long sequence();
+
+    long contactId();
+
+    // The editable fields the contact was added with, in getEditableFields order
+    record Added(long sequence, long contactId, String type, Map<String, String> fields) implements ContactEvent {
+    }
+
+    record FieldUpdated(long sequence, long contactId, String field, String oldValue, String newValue)
+            implements ContactEvent {
+    }
+
+    record Removed(long sequence, long contactId) implements ContactEvent {
+    }
+}
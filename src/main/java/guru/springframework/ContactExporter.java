@@ -0,0 +1,144 @@
+package guru.springframework;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Streams every contact of a PhoneBook to CSV or JSON that ContactImporter reads back. Contacts are read one page
+// at a time, so memory use does not grow with the book, and written through one large buffer straight to a
+// FileChannel, optionally gzip compressed at the fastest level.
+public class ContactExporter {
+    static final int PAGE_SIZE = 4096;
+    static final int BUFFER_SIZE = 1 << 16;
+    // Every editable field of either contact type, the CSV columns after id and type
+    static final String[] FIELDS = {"name", "surname", "birthDate", "gender", "phoneNumber", "organizationName", "address"};
+
+    private final PhoneBook phoneBook;
+
+    public ContactExporter(PhoneBook phoneBook) {
+        this.phoneBook = phoneBook;
+    }
+
+    // JSON for a name ending in .json or .json.gz and CSV otherwise, gzip compressed when the name ends in .gz
+    public ExportResult exportFile(Path file) throws IOException {
+        long start = System.nanoTime();
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        long exported;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             Writer writer = writer(channel, gzip)) {
+            exported = (gzip ? name.substring(0, name.length() - 3) : name).endsWith(".json")
+                    ? exportJson(writer) : exportCsv(writer);
+        }
+        return new ExportResult(exported, Files.size(file), System.nanoTime() - start);
+    }
+
+    private static Writer writer(FileChannel channel, boolean gzip) throws IOException {
+        OutputStream out = Channels.newOutputStream(channel);
+        if (gzip) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    // CSV with a header row, values quoted only when they contain a comma, quote or line break; returns the
+    // number of contacts written
+    public long exportCsv(Writer writer) throws IOException {
+        writer.write("id,type");
+        for (String field : FIELDS) {
+            writer.write(',');
+            writer.write(field);
+        }
+        writer.write('\n');
+        long exported = 0;
+        for (List<AbstractContact> page = phoneBook.readPage(0, PAGE_SIZE); !page.isEmpty();
+             page = phoneBook.readPage((int) exported, PAGE_SIZE)) {
+            for (AbstractContact contact : page) {
+                writer.write(Long.toString(contact.getId()));
+                writer.write(',');
+                writer.write(contact.getType());
+                for (String field : FIELDS) {
+                    writer.write(',');
+                    if (FieldIndex.hasField(contact, field)) {
+                        writeCsvValue(writer, contact.getFieldValue(field));
+                    }
+                }
+                writer.write('\n');
+            }
+            exported += page.size();
+        }
+        writer.flush();
+        return exported;
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    // JSON array with one object per contact holding its id, type and editable fields; returns the number of
+    // contacts written
+    public long exportJson(Writer writer) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        json.beginArray();
+        long exported = 0;
+        for (List<AbstractContact> page = phoneBook.readPage(0, PAGE_SIZE); !page.isEmpty();
+             page = phoneBook.readPage((int) exported, PAGE_SIZE)) {
+            for (AbstractContact contact : page) {
+                json.beginObject();
+                json.name("id").value(contact.getId());
+                json.name("type").value(contact.getType());
+                for (String field : contact.getEditableFields()) {
+                    json.name(field).value(contact.getFieldValue(field));
+                }
+                json.endObject();
+            }
+            exported += page.size();
+        }
+        json.endArray();
+        json.flush();
+        return exported;
+    }
+
+    public record ExportResult(long exported, long bytes, long elapsedNanos) {
+
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "Exported %d records, %d bytes in %d ms (%.1f MB/s)",
+                    exported, bytes, elapsedNanos / 1_000_000, megabytesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package guru.springframework;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+
+// Streams contacts from CSV or JSON files into a PhoneBook. Rows are parsed on the calling thread,
+// validated in parallel one batch at a time while the next batch is read, and added batch by batch.
+public class ContactImporter {
+    static final int DEFAULT_BATCH_SIZE = 8192;
+
+    private final PhoneBook phoneBook;
+    private final int batchSize;
+
+    public ContactImporter(PhoneBook phoneBook) {
+        this(phoneBook, DEFAULT_BATCH_SIZE);
+    }
+
+    public ContactImporter(PhoneBook phoneBook, int batchSize) {
+        this.phoneBook = phoneBook;
+        this.batchSize = batchSize;
+    }
+
+    // The format is chosen from the file extension, .json for JSON and anything else for CSV; a further .gz
+    // extension marks gzip compressed input
+    public ImportResult importFile(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        try (InputStream in = Files.newInputStream(file);
+             Reader reader = new BufferedReader(new InputStreamReader(
+                gzip ? new GZIPInputStream(in, 1 << 16) : in, StandardCharsets.UTF_8), 1 << 16)) {
+            if ((gzip ? name.substring(0, name.length() - 3) : name).endsWith(".json")) {
+                return importJson(reader);
+            }
+            return importCsv(reader);
+        }
+    }
+
+    // CSV with a header row naming the columns: type plus any of the editable fields
+    public ImportResult importCsv(Reader reader) throws IOException {
+        CsvRowSource source = new CsvRowSource(reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader));
+        return run(source);
+    }
+
+    // JSON array of objects with a "type" member plus any of the editable fields
+    public ImportResult importJson(Reader reader) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.beginArray();
+        ImportResult result = run(new JsonRowSource(jsonReader));
+        jsonReader.endArray();
+        return result;
+    }
+
+    private ImportResult run(RowSource source) throws IOException {
+        long start = System.nanoTime();
+        long imported = 0;
+        long rejected = 0;
+        CompletableFuture<List<AbstractContact>> pending = null;
+        int pendingRows = 0;
+
+        List<Map<String, String>> batch = nextBatch(source);
+        while (!batch.isEmpty()) {
+            List<Map<String, String>> rows = batch;
+            CompletableFuture<List<AbstractContact>> validated =
+                    CompletableFuture.supplyAsync(() -> rows.parallelStream().map(ContactImporter::toContact).toList());
+            if (pending != null) {
+                List<AbstractContact> contacts = insert(pending.join());
+                imported += contacts.size();
+                rejected += pendingRows - contacts.size();
+            }
+            pending = validated;
+            pendingRows = rows.size();
+            batch = nextBatch(source);
+        }
+        if (pending != null) {
+            List<AbstractContact> contacts = insert(pending.join());
+            imported += contacts.size();
+            rejected += pendingRows - contacts.size();
+        }
+        return new ImportResult(imported, rejected + source.malformedRows(), System.nanoTime() - start);
+    }
+
+    private List<AbstractContact> insert(List<AbstractContact> validated) {
+        List<AbstractContact> contacts = validated.stream().filter(Objects::nonNull).toList();
+        phoneBook.addContacts(contacts);
+        return contacts;
+    }
+
+    private List<Map<String, String>> nextBatch(RowSource source) throws IOException {
+        List<Map<String, String>> batch = new ArrayList<>(batchSize);
+        Map<String, String> row;
+        while (batch.size() < batchSize && (row = source.next()) != null) {
+            batch.add(row);
+        }
+        return batch;
+    }
+
+    // Builds the contact for a row, or returns null when the row has to be rejected
+    static AbstractContact toContact(Map<String, String> row) {
+        String type = row.get("type");
+        AbstractContact contact = type == null ? null : AbstractContact.newContact(type.trim().toLowerCase(Locale.ROOT));
+        if (contact == null) {
+            return null;
+        }
+        String phoneNumber = row.getOrDefault("phoneNumber", "").trim();
+        if (phoneNumber.isEmpty()) {
+            phoneNumber = "[no number]";
+        } else if (!phoneNumber.equals("[no number]") && !PhoneNumberValidator.isValid(phoneNumber)) {
+            return null;
+        }
+        for (String field : contact.getEditableFields()) {
+            String value = row.get(field);
+            if (value != null) {
+                contact.restoreField(field, value.trim());
+            }
+        }
+        contact.restoreField("phoneNumber", phoneNumber);
+        return contact;
+    }
+
+    public record ImportResult(long imported, long rejected, long elapsedNanos) {
+
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (imported + rejected) * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "Imported %d records, rejected %d rows in %d ms (%.0f rows/s)",
+                    imported, rejected, elapsedNanos / 1_000_000, rowsPerSecond());
+        }
+    }
+
+    private interface RowSource {
+        // Next row keyed by column name, or null at the end of the input
+        Map<String, String> next() throws IOException;
+
+        // Rows that could not even be parsed into fields
+        long malformedRows();
+    }
+
+    private static class CsvRowSource implements RowSource {
+        private final BufferedReader reader;
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private String[] header;
+        private long malformed;
+
+        CsvRowSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            if (header == null) {
+                if (!readRecord()) {
+                    return null;
+                }
+                header = fields.toArray(new String[0]);
+            }
+            while (readRecord()) {
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    continue; // Blank line
+                }
+                if (fields.size() != header.length) {
+                    malformed++;
+                    continue;
+                }
+                Map<String, String> row = new HashMap<>(header.length * 2);
+                for (int i = 0; i < header.length; i++) {
+                    row.put(header[i], fields.get(i));
+                }
+                return row;
+            }
+            return null;
+        }
+
+        @Override
+        public long malformedRows() {
+            return malformed;
+        }
+
+        // Reads one RFC 4180 record into fields, quoted values may contain commas, quotes and line breaks
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            int c = reader.read();
+            if (c == -1) {
+                return false;
+            }
+            boolean quoted = false;
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return true;
+        }
+    }
+
+    private static class JsonRowSource implements RowSource {
+        private final JsonReader reader;
+        private long malformed;
+
+        JsonRowSource(JsonReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            while (reader.hasNext()) {
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    malformed++;
+                    continue;
+                }
+                Map<String, String> row = new HashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    JsonToken token = reader.peek();
+                    if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                        row.put(name, reader.nextString());
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                return row;
+            }
+            return null;
+        }
+
+        @Override
+        public long malformedRows() {
+            return malformed;
+        }
+    }
+}
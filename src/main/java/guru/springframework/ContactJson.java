@@ -0,0 +1,24 @@
+package guru.springframework;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// JSON shape of a contact shared by the command line and the HTTP service: id, type, the editable fields and
+// the times. The type and field members are what ContactImporter reads back.
+final class ContactJson {
+
+    private ContactJson() {
+    }
+
+    static Map<String, Object> toMap(AbstractContact contact) {
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put("id", contact.getId());
+        object.put("type", contact.getType());
+        for (String field : contact.getEditableFields()) {
+            object.put(field, contact.getFieldValue(field));
+        }
+        object.put("createdTime", contact.getCreatedTime().toString());
+        object.put("lastEditTime", contact.getLastEditTime().toString());
+        return object;
+    }
+}
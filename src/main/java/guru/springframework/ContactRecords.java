@@ -0,0 +1,24 @@
+package guru.springframework;
+
+// Store that keeps contacts as records rather than objects and hands them out as ContactView flyweights
+abstract class ContactRecords {
+
+    // Editable fields of a contact type, in the order Person and Organization list them
+    abstract String[] fieldsOf(String type);
+
+    // Stored value of the field, "" for a removed contact or a field its type does not have
+    abstract String value(long id, String field);
+
+    // Stores a value; edited also sets the last edit time to now
+    abstract void set(long id, String field, String value, boolean edited);
+
+    // Epoch millis, 0 for a removed contact
+    abstract long createdMillis(long id);
+
+    abstract long lastEditMillis(long id);
+
+    abstract void restoreTimes(long id, long createdMillis, long lastEditMillis);
+
+    // Text in the format of Person and Organization getAllFieldsForSearch
+    abstract String searchTextOf(long id);
+}
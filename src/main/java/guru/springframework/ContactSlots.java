@@ -0,0 +1,112 @@
+package guru.springframework;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+// Contacts in listing order. Every contact remembers its slot, so removing one only clears the slot; the
+// array is compacted once more than half of it is empty. A Fenwick tree over the occupied slots finds the
+// n-th contact in O(log n) while there are holes, and is not needed at all while there are none.
+class ContactSlots implements Serializable {
+    private static final int MIN_COMPACT_SLOTS = 64;
+
+    private AbstractContact[] slots = new AbstractContact[16];
+    private int[] occupied = new int[17]; // Fenwick tree, 1-based
+    private int used;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    // Number of slots to visit when iterating, including empty ones
+    int slotCount() {
+        return used;
+    }
+
+    // Contact in the slot, or null for a removed one
+    AbstractContact atSlot(int slot) {
+        return slots[slot];
+    }
+
+    void add(AbstractContact contact) {
+        if (used == slots.length) {
+            grow();
+        }
+        slots[used] = contact;
+        contact.setSlot(used);
+        increment(used, 1);
+        used++;
+        size++;
+    }
+
+    void remove(AbstractContact contact) {
+        int slot = contact.getSlot();
+        slots[slot] = null;
+        increment(slot, -1);
+        size--;
+        if (used >= MIN_COMPACT_SLOTS && size < used / 2) {
+            compact();
+        }
+    }
+
+    // Contact at the 0-based listing position
+    AbstractContact get(int index) {
+        return slots[slotOf(index)];
+    }
+
+    // Slot holding the contact at the 0-based listing position
+    int slotOf(int index) {
+        if (size == used) {
+            return index;
+        }
+        // Descend the Fenwick tree to the slot holding the (index + 1)-th contact
+        int slot = 0;
+        int remaining = index + 1;
+        for (int step = Integer.highestOneBit(occupied.length - 1); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next < occupied.length && occupied[next] < remaining) {
+                slot = next;
+                remaining -= occupied[next];
+            }
+        }
+        return slot;
+    }
+
+    private void increment(int slot, int delta) {
+        for (int i = slot + 1; i < occupied.length; i += i & -i) {
+            occupied[i] += delta;
+        }
+    }
+
+    private void grow() {
+        slots = Arrays.copyOf(slots, slots.length * 2);
+        rebuildTree();
+    }
+
+    private void compact() {
+        int target = 0;
+        for (int slot = 0; slot < used; slot++) {
+            AbstractContact contact = slots[slot];
+            if (contact != null) {
+                slots[target] = contact;
+                contact.setSlot(target);
+                target++;
+            }
+        }
+        Arrays.fill(slots, target, used, null);
+        used = target;
+        rebuildTree();
+    }
+
+    // Builds the Fenwick tree for the current slots in O(n)
+    private void rebuildTree() {
+        occupied = new int[slots.length + 1];
+        for (int i = 1; i < occupied.length; i++) {
+            occupied[i] += i <= used && slots[i - 1] != null ? 1 : 0;
+            int parent = i + (i & -i);
+            if (parent < occupied.length) {
+                occupied[parent] += occupied[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package guru.springframework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Compact binary snapshot of a PhoneBook, read through memory-mapped buffers:
+//   header  magic, version, record count, next id, offset table position, whether ids are ascending
+//   records type, id, created and last edit time as epoch millis, field count, length-prefixed UTF-8 values
+//   table   one 8-byte file offset per record, in listing order
+// A record never crosses a CHUNK boundary so files larger than one mapping can be read chunk by chunk.
+final class ContactSnapshot {
+    private static final int MAGIC = 0x50425331; // "PBS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+    private static final byte PERSON = 0;
+    private static final byte ORGANIZATION = 1;
+
+    private final ByteBuffer[] chunks;
+    private final int size;
+    private final long nextId;
+    private final long tableOffset;
+    private final boolean ascendingIds;
+
+    private ContactSnapshot(ByteBuffer[] chunks, int size, long nextId, long tableOffset, boolean ascendingIds) {
+        this.chunks = chunks;
+        this.size = size;
+        this.nextId = nextId;
+        this.tableOffset = tableOffset;
+        this.ascendingIds = ascendingIds;
+    }
+
+    // Maps the file without reading any record; only the header and the size of the offset table are checked
+    static ContactSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) {
+                throw new IOException("Not a phone book snapshot, " + length + " bytes are too short for the header: " + file);
+            }
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((length + CHUNK_SIZE - 1) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_BITS;
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, length - start));
+                chunks[i] = chunk;
+            }
+            ByteBuffer header = chunks[0];
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a phone book snapshot: " + file);
+            }
+            long size = header.getLong(8);
+            long tableOffset = header.getLong(24);
+            if (size < 0 || size > Integer.MAX_VALUE || tableOffset < HEADER_SIZE || tableOffset > length - 8 * size) {
+                throw new IOException("Truncated phone book snapshot, " + size + " records do not fit in " + length
+                        + " bytes: " + file);
+            }
+            return new ContactSnapshot(chunks, (int) size, header.getLong(16), tableOffset, header.get(32) != 0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long nextId() {
+        return nextId;
+    }
+
+    private long idAt(int position) {
+        long offset = recordOffset(position);
+        return chunk(offset).getLong(local(offset) + 1);
+    }
+
+    // Listing position of the contact with the given id, or -1
+    int positionOf(long id) {
+        if (!ascendingIds) {
+            for (int i = 0; i < size; i++) {
+                if (idAt(i) == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = idAt(middle);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    // Decodes one record into a new contact that carries its id but does not belong to a book
+    AbstractContact read(int position) {
+        long offset = recordOffset(position);
+        ByteBuffer chunk = chunk(offset);
+        int start = local(offset);
+        int at = start;
+        AbstractContact contact = AbstractContact.newContact(chunk.get(at) == PERSON ? "person" : "organization");
+        long created = chunk.getLong(at + 9);
+        long lastEdit = chunk.getLong(at + 17);
+        int fieldCount = chunk.get(at + 25);
+        at += 26;
+        String[] fields = contact.getEditableFields();
+        for (int i = 0; i < fieldCount; i++) {
+            int length = chunk.getInt(at);
+            byte[] bytes = new byte[length];
+            chunk.get(at + 4, bytes);
+            contact.restoreField(fields[i], new String(bytes, StandardCharsets.UTF_8));
+            at += 4 + length;
+        }
+        contact.restoreTimes(created, lastEdit);
+        contact.attach(null, chunk.getLong(start + 1));
+        return contact;
+    }
+
+    private long recordOffset(int position) {
+        long entry = tableOffset + 8L * position;
+        return chunk(entry).getLong(local(entry));
+    }
+
+    private ByteBuffer chunk(long offset) {
+        return chunks[(int) (offset >>> CHUNK_BITS)];
+    }
+
+    private static int local(long offset) {
+        return (int) (offset & (CHUNK_SIZE - 1));
+    }
+
+    static void write(Path file, PhoneBook phoneBook) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new Writer(channel);
+            int count = phoneBook.count();
+            long[] offsets = new long[count];
+            boolean ascendingIds = true;
+            long previousId = Long.MIN_VALUE;
+            writer.skip(HEADER_SIZE);
+            for (int i = 0; i < count; i++) {
+                AbstractContact contact = phoneBook.peek(i);
+                ascendingIds &= contact.getId() > previousId;
+                previousId = contact.getId();
+                offsets[i] = writer.record(contact);
+            }
+            writer.alignTo(8);
+            long tableOffset = writer.position();
+            for (long offset : offsets) {
+                writer.putLong(offset);
+            }
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(count).putLong(phoneBook.nextId()).putLong(tableOffset)
+                    .put((byte) (ascendingIds ? 1 : 0));
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+
+    private static class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        private long position;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return position;
+        }
+
+        // Writes a record and returns its file offset
+        long record(AbstractContact contact) throws IOException {
+            String[] fields = contact.getEditableFields();
+            byte[][] values = new byte[fields.length][];
+            int size = 26;
+            for (int i = 0; i < fields.length; i++) {
+                values[i] = contact.getFieldValue(fields[i]).getBytes(StandardCharsets.UTF_8);
+                size += 4 + values[i].length;
+            }
+            if ((position & (CHUNK_SIZE - 1)) + size > CHUNK_SIZE) {
+                skip(CHUNK_SIZE - (position & (CHUNK_SIZE - 1)));
+            }
+            long offset = position;
+            ensure(26);
+            buffer.put("person".equals(contact.getType()) ? PERSON : ORGANIZATION)
+                    .putLong(contact.getId())
+                    .putLong(contact.createdMillis())
+                    .putLong(contact.lastEditMillis())
+                    .put((byte) fields.length);
+            for (byte[] value : values) {
+                ensure(4);
+                buffer.putInt(value.length);
+                for (int written = 0; written < value.length; ) {
+                    ensure(1);
+                    int length = Math.min(buffer.remaining(), value.length - written);
+                    buffer.put(value, written, length);
+                    written += length;
+                }
+            }
+            position += size;
+            return offset;
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        void alignTo(int alignment) throws IOException {
+            skip((alignment - position % alignment) % alignment);
+        }
+
+        void skip(long bytes) throws IOException {
+            for (long i = 0; i < bytes; i++) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+            position += bytes;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
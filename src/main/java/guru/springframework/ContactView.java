@@ -0,0 +1,85 @@
+package guru.springframework;
+
+// Flyweight view of a contact kept as a record by ColumnarPhoneBook or OffHeapPhoneBook; it holds only the
+// store and the id, every read and write goes to the store, so any number of views of one contact stay consistent
+final class ContactView extends AbstractContact {
+    final transient ContactRecords book;
+    private final String type;
+
+    ContactView(ContactRecords book, long id, String type) {
+        super(0, 0);
+        this.book = book;
+        this.type = type;
+        attach(null, id);
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public String[] getEditableFields() {
+        return book.fieldsOf(type);
+    }
+
+    @Override
+    public void updateField(String field, String newValue) {
+        if (!FieldIndex.hasField(this, field)) {
+            return;
+        }
+        book.set(getId(), field, "phoneNumber".equals(field) ? validatePhoneNumber(newValue) : newValue, true);
+    }
+
+    @Override
+    void restoreField(String field, String value) {
+        book.set(getId(), field, value, false);
+    }
+
+    @Override
+    void restoreTimes(long createdMillis, long lastEditMillis) {
+        book.restoreTimes(getId(), createdMillis, lastEditMillis);
+    }
+
+    @Override
+    public String getFieldValue(String field) {
+        return FieldIndex.hasField(this, field) ? book.value(getId(), field) : "";
+    }
+
+    @Override
+    long createdMillis() {
+        return book.createdMillis(getId());
+    }
+
+    @Override
+    long lastEditMillis() {
+        return book.lastEditMillis(getId());
+    }
+
+    // Not cached, another view of the same contact may have changed it
+    @Override
+    public String getAllFieldsForSearch() {
+        return buildSearchText();
+    }
+
+    @Override
+    protected String buildSearchText() {
+        return book.searchTextOf(getId());
+    }
+
+    @Override
+    public void display() {
+        if ("person".equals(type)) {
+            System.out.println("Name: " + getFieldValue("name"));
+            System.out.println("Surname: " + getFieldValue("surname"));
+            System.out.println("Birth date: " + getFieldValue("birthDate"));
+            System.out.println("Gender: " + getFieldValue("gender"));
+        } else {
+            System.out.println("Organization name: " + getFieldValue("organizationName"));
+            System.out.println("Address: " + getFieldValue("address"));
+        }
+        System.out.println("Phone Number: " + getFieldValue("phoneNumber"));
+        System.out.println("Time created: " + getCreatedTime());
+        System.out.println("Time last edit: " + getLastEditTime());
+    }
+}
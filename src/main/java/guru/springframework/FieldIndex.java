@@ -0,0 +1,95 @@
+package guru.springframework;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Ids of the contacts by the exact value of one field. A hashed index answers equality lookups, a sorted one
+// also answers ranges of values in String order.
+class FieldIndex implements Serializable {
+    private final String field;
+    private final Map<String, Set<Long>> idsByValue;
+
+    FieldIndex(String field, boolean sorted) {
+        this.field = field;
+        this.idsByValue = sorted ? new TreeMap<>() : new HashMap<>();
+    }
+
+    boolean isSorted() {
+        return idsByValue instanceof NavigableMap;
+    }
+
+    // Contacts without the field in getEditableFields, or with a null value, are not indexed
+    void add(AbstractContact contact) {
+        if (hasField(contact, field)) {
+            add(contact.getId(), contact.getFieldValue(field));
+        }
+    }
+
+    void remove(AbstractContact contact) {
+        if (hasField(contact, field)) {
+            remove(contact.getId(), contact.getFieldValue(field));
+        }
+    }
+
+    void update(long id, String oldValue, String newValue) {
+        remove(id, oldValue);
+        add(id, newValue);
+    }
+
+    Set<Long> find(String value) {
+        return value == null ? Set.of() : idsByValue.getOrDefault(value, Set.of());
+    }
+
+    // Ids with a value from from to to, both inclusive; a null bound leaves that side open
+    List<Long> range(String from, String to) {
+        if (from != null && to != null && from.compareTo(to) > 0) {
+            return new ArrayList<>(); // Like a scan; the sub map views reject reversed bounds
+        }
+        NavigableMap<String, Set<Long>> sorted = (NavigableMap<String, Set<Long>>) idsByValue;
+        NavigableMap<String, Set<Long>> values = from == null ? sorted : sorted.tailMap(from, true);
+        if (to != null) {
+            values = values.headMap(to, true);
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Collection<Long> posting : values.values()) {
+            ids.addAll(posting);
+        }
+        return ids;
+    }
+
+    private void add(long id, String value) {
+        if (value != null) {
+            idsByValue.computeIfAbsent(value, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void remove(long id, String value) {
+        if (value == null) {
+            return;
+        }
+        Set<Long> ids = idsByValue.get(value);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                idsByValue.remove(value);
+            }
+        }
+    }
+
+    static boolean hasField(AbstractContact contact, String field) {
+        for (String editable : contact.getEditableFields()) {
+            if (editable.equals(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
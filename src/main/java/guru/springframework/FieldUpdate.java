@@ -0,0 +1,5 @@
+package guru.springframework;
+
+// One edit of a PhoneBook.applyBatch call: set the field of the contact with the given id to the value
+public record FieldUpdate(long contactId, String field, String value) {
+}
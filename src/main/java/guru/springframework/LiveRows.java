@@ -0,0 +1,92 @@
+package guru.springframework;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Rows of a record store that still hold a contact. Removing a contact only marks its row, so the rows after it
+// keep their place, and the store moves the live rows together once more than half of them are removed. Like
+// ContactSlots, a Fenwick tree over the live rows finds the n-th contact in O(log n) while there are holes.
+class LiveRows implements Serializable {
+    private static final int MIN_COMPACT_ROWS = 64;
+
+    private final BitSet removed = new BitSet();
+    private int[] live = new int[17]; // Fenwick tree, 1-based
+    private int rows;
+    private int count;
+
+    // Rows in use, including removed ones
+    int rows() {
+        return rows;
+    }
+
+    // Rows holding a contact
+    int count() {
+        return count;
+    }
+
+    boolean isRemoved(int row) {
+        return removed.get(row);
+    }
+
+    // Takes the next row
+    void add() {
+        if (rows + 1 == live.length) {
+            live = new int[live.length * 2 - 1];
+            rebuildTree();
+        }
+        increment(rows, 1);
+        rows++;
+        count++;
+    }
+
+    // Returns whether the store should compact its rows now
+    boolean remove(int row) {
+        removed.set(row);
+        increment(row, -1);
+        count--;
+        return rows >= MIN_COMPACT_ROWS && count < rows / 2;
+    }
+
+    // Row holding the contact at the 0-based listing position
+    int rowOf(int index) {
+        if (count == rows) {
+            return index;
+        }
+        int row = 0;
+        int remaining = index + 1;
+        for (int step = Integer.highestOneBit(live.length - 1); step > 0; step >>= 1) {
+            int next = row + step;
+            if (next < live.length && live[next] < remaining) {
+                row = next;
+                remaining -= live[next];
+            }
+        }
+        return row;
+    }
+
+    // Called once the store has moved its live rows, in order, to the front
+    void compacted() {
+        removed.clear();
+        rows = count;
+        rebuildTree();
+    }
+
+    private void increment(int row, int delta) {
+        for (int i = row + 1; i < live.length; i += i & -i) {
+            live[i] += delta;
+        }
+    }
+
+    // Builds the Fenwick tree for the current rows in O(n)
+    private void rebuildTree() {
+        Arrays.fill(live, 0);
+        for (int i = 1; i < live.length; i++) {
+            live[i] += i <= rows && !removed.get(i - 1) ? 1 : 0;
+            int parent = i + (i & -i);
+            if (parent < live.length) {
+                live[parent] += live[i];
+            }
+        }
+    }
+}
@@ -4,7 +4,17 @@ import java.util.List;
 import java.util.Scanner;
 
 public class Main {
+    static final int PAGE_SIZE = 20;
+
     public static void main(String[] args) {
+        if (args.length > 0) {
+            // Subcommands run once without prompts, e.g. "search smith --limit 10"
+            int status = Cli.run(args, System.out, System.err);
+            if (status != 0) {
+                System.exit(status);
+            }
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
         PhoneBook phoneBook = new PhoneBook();  // No file saving/loading required
 
@@ -70,10 +80,22 @@ public class Main {
     }
 
     static void handleList(PhoneBook phoneBook, Scanner scanner) {
-        phoneBook.listContacts();
-        System.out.println();
-        System.out.println("[list] Enter action ([number], back): ");
-        String listAction = scanner.nextLine().trim();
+        int offset = 0;
+        String listAction;
+        while (true) {
+            phoneBook.listContacts(offset, PAGE_SIZE);
+            System.out.println();
+            System.out.println("[list] Enter action ([number], next, prev, back): ");
+            listAction = scanner.nextLine().trim();
+
+            if (listAction.equalsIgnoreCase("next") && offset + PAGE_SIZE < phoneBook.count()) {
+                offset += PAGE_SIZE;
+            } else if (listAction.equalsIgnoreCase("prev") && offset > 0) {
+                offset -= PAGE_SIZE;
+            } else if (!listAction.equalsIgnoreCase("next") && !listAction.equalsIgnoreCase("prev")) {
+                break;
+            }
+        }
 
         if (listAction.equalsIgnoreCase("back")) {
             return;  // Go back to the menu
@@ -154,50 +176,75 @@ public class Main {
         System.out.println("Enter search query: ");
         String query = scanner.nextLine().trim();
 
-        // Perform the search
-        List<AbstractContact> results = phoneBook.search(query);
+        // Perform the search one page at a time, one match more than shown tells whether there is a next page
+        int offset = 0;
+        List<AbstractContact> results = phoneBook.search(query, offset, PAGE_SIZE + 1);
 
         // Display results
         if (results.isEmpty()) {
             System.out.println("No results found.");
-        } else {
-            System.out.println("Found " + results.size() + " results:");
-            for (int i = 0; i < results.size(); i++) {
-                System.out.println((i + 1) + ". " + results.get(i).getAllFieldsForSearch());
+            return;
+        }
+        boolean showPage = true;
+        while (true) {
+            if (showPage) {
+                printSearchPage(results, offset);
+                showPage = false;
             }
 
             // Choose an action after search results
-            while (true) {
-                System.out.println("[search] Enter action ([number], back, again, exit): ");
-                String action = scanner.nextLine().trim().toLowerCase();
-
-                if (action.equalsIgnoreCase("back")) {
-                    return;  // Return to the main menu
-                } else if (action.equalsIgnoreCase("again")) {
-                    handleSearch(phoneBook, scanner); // Start search again
-                    return;
-                } else if (action.equalsIgnoreCase("exit")) {
-                    System.exit(0);  // Exit the program
+            System.out.println("[search] Enter action ([number], next, prev, back, again, exit): ");
+            String action = scanner.nextLine().trim().toLowerCase();
+
+            if (action.equalsIgnoreCase("back")) {
+                return;  // Return to the main menu
+            } else if (action.equalsIgnoreCase("again")) {
+                handleSearch(phoneBook, scanner); // Start search again
+                return;
+            } else if (action.equalsIgnoreCase("exit")) {
+                System.exit(0);  // Exit the program
+            } else if (action.equalsIgnoreCase("next") || action.equalsIgnoreCase("prev")) {
+                if (action.equalsIgnoreCase("next") && results.size() > PAGE_SIZE) {
+                    offset += PAGE_SIZE;
+                } else if (action.equalsIgnoreCase("prev") && offset > 0) {
+                    offset -= PAGE_SIZE;
                 }
+                results = phoneBook.search(query, offset, PAGE_SIZE + 1);
+                showPage = true;
+                continue;
+            }
+
+            try {
+                int index = Integer.parseInt(action) - 1 - offset;  // Convert to an index into the page
+                if (index >= 0 && index < Math.min(results.size(), PAGE_SIZE)) {
+                    AbstractContact contact = results.get(index);
+                    contact.display();
 
-                try {
-                    int index = Integer.parseInt(action) - 1;  // Convert to 0-based index
-                    if (index >= 0 && index < results.size()) {
-                        AbstractContact contact = results.get(index);
-                        contact.display();
-
-                        // Allow edit or delete after displaying a contact
-                        handleRecordMenu(phoneBook, scanner, contact);
-                    } else {
-                        System.out.println("Invalid index.");
-                    }
-                } catch (NumberFormatException e) {
-                    System.out.println("Invalid input.");
+                    // Allow edit or delete after displaying a contact
+                    handleRecordMenu(phoneBook, scanner, contact);
+                } else {
+                    System.out.println("Invalid index.");
                 }
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input.");
             }
         }
     }
 
+    // Numbered from offset + 1 like the list pages; the total is only known once the last page is reached
+    private static void printSearchPage(List<AbstractContact> results, int offset) {
+        int shown = Math.min(results.size(), PAGE_SIZE);
+        if (results.size() > PAGE_SIZE) {
+            System.out.println("Found more than " + (offset + shown) + " results, showing " + (offset + 1) + "-"
+                    + (offset + shown) + ":");
+        } else {
+            System.out.println("Found " + (offset + shown) + " results:");
+        }
+        for (int i = 0; i < shown; i++) {
+            System.out.println((offset + i + 1) + ". " + results.get(i).getAllFieldsForSearch());
+        }
+    }
+
 
 
     static void handleCount(PhoneBook phoneBook) {
@@ -206,10 +253,7 @@ public class Main {
 
     // Helper method to validate phone number format
     private static boolean isValidPhoneNumber(String phoneNumber) {
-        String correctNumberRegexOne = "\\+?\\(?(\\w{2,}|\\d)\\)?((-|\\s)\\w{2,})*";
-        String correctNumberRegexTwo = "\\+?(\\w{2,}|\\d)(-|\\s)\\(?\\w{2,}\\)?((-|\\s)\\w{2,})*";
-
-//        // Check if the phone number matches either of the valid formats
-        return !phoneNumber.matches(correctNumberRegexOne) && !phoneNumber.matches(correctNumberRegexTwo);
+        // Check if the phone number matches neither of the valid formats
+        return !PhoneNumberValidator.isValid(phoneNumber);
     }
 }
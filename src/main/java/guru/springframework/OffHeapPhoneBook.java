@@ -0,0 +1,417 @@
+package guru.springframework;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Phone book whose contacts live outside the Java heap in direct buffer arenas, so the collector never traces
+// them; the heap only holds one long per contact locating its record. A record is
+//   type, id, created and last edit time as epoch millis, field count, the UTF-8 byte length of every field,
+//   the UTF-8 search text: the field values separated by single spaces
+// so plain text searches compare the query with the record bytes and regex searches decode the text into one
+// reused buffer, neither creates contacts. Contacts are handed out as ContactView flyweights. An edit appends a
+// new version of the record and compact() reclaims the space of the old ones. Removing a contact only marks its
+// row, see LiveRows; its record stays readable until compact().
+public class OffHeapPhoneBook extends ContactRecords implements ContactBook {
+    static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+    private static final int HEADER_SIZE = 26;
+    private static final byte PERSON = 0;
+    private static final byte ORGANIZATION = 1;
+    private static final String[] PERSON_FIELDS = {"name", "surname", "birthDate", "gender", "phoneNumber"};
+    private static final String[] ORGANIZATION_FIELDS = {"organizationName", "address", "phoneNumber"};
+
+    private final int chunkSize;
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private long[] records = new long[16]; // Chunk number << 32 | position, in listing order
+    private final LiveRows liveRows = new LiveRows();
+    private long nextId = 1;
+    private long liveBytes;
+
+    public OffHeapPhoneBook() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    OffHeapPhoneBook(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    // Encodes the contact's values into a new record; the book hands out its own views, not the given object
+    @Override
+    public void addContact(AbstractContact contact) {
+        String[] fields = contact.getEditableFields();
+        String[] values = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = contact.getFieldValue(fields[i]);
+        }
+        int row = liveRows.rows();
+        if (row == records.length) {
+            records = Arrays.copyOf(records, row * 2);
+        }
+        liveRows.add();
+        records[row] = append("person".equals(contact.getType()) ? PERSON : ORGANIZATION, nextId++,
+                contact.createdMillis(), contact.lastEditMillis(),
+                values);
+    }
+
+    @Override
+    public AbstractContact getContact(int index) {
+        return index >= 0 && index < count() ? view(liveRows.rowOf(index)) : null;
+    }
+
+    // Contact with the given id, or null if there is none
+    @Override
+    public AbstractContact getContactById(long id) {
+        int row = rowOf(id);
+        return row < 0 ? null : view(row);
+    }
+
+    @Override
+    public int count() {
+        return liveRows.count();
+    }
+
+    @Override
+    public void removeContact(AbstractContact contact) {
+        if (!(contact instanceof ContactView view) || view.book != this) {
+            return; // Not part of this phone book
+        }
+        int row = rowOf(contact.getId());
+        if (row < 0) {
+            return;
+        }
+        liveBytes -= recordSize(records[row]);
+        if (liveRows.remove(row)) {
+            compactRows();
+        }
+    }
+
+    // Same matching as PhoneBook.search
+    @Override
+    public List<AbstractContact> search(String query) {
+        List<AbstractContact> results = new ArrayList<>();
+        if (TokenIndex.isLiteral(query)) {
+            byte[] needle = TokenIndex.normalize(query).getBytes(StandardCharsets.US_ASCII);
+            for (int row = 0; row < liveRows.rows(); row++) {
+                if (!liveRows.isRemoved(row) && containsIgnoreCase(records[row], needle)) {
+                    results.add(view(row));
+                }
+            }
+            return results;
+        }
+        Matcher matcher = Pattern.compile(query, Pattern.CASE_INSENSITIVE).matcher("");
+        TextDecoder decoder = new TextDecoder();
+        for (int row = 0; row < liveRows.rows(); row++) {
+            if (!liveRows.isRemoved(row) && matcher.reset(decoder.decode(records[row])).find()) {
+                results.add(view(row));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void listContacts() {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        TextDecoder decoder = new TextDecoder();
+        int number = 0;
+        for (int row = 0; row < liveRows.rows(); row++) {
+            if (!liveRows.isRemoved(row)) {
+                out.append(String.valueOf(++number)).append(". ").append(decoder.decode(records[row])).println();
+            }
+        }
+        out.flush();
+    }
+
+    // Direct memory taken by the arenas, including space of replaced and removed records
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer chunk : chunks) {
+            bytes += chunk.capacity();
+        }
+        return bytes;
+    }
+
+    // Direct memory taken by the current records
+    public long liveBytes() {
+        return liveBytes;
+    }
+
+    // Copies the current records into fresh arenas, freeing the space of replaced and removed ones
+    public void compact() {
+        compactRows();
+        List<ByteBuffer> old = chunks;
+        chunks = new ArrayList<>();
+        liveBytes = 0;
+        for (int row = 0; row < liveRows.rows(); row++) {
+            long record = records[row];
+            ByteBuffer source = old.get(chunkOf(record));
+            int position = positionOf(record);
+            int length = recordSize(record, old);
+            ByteBuffer target = reserve(length);
+            int start = target.position();
+            target.put(target.position(), source, position, length);
+            target.position(start + length);
+            records[row] = location(start);
+            liveBytes += length;
+        }
+    }
+
+    private ContactView view(int row) {
+        long record = records[row];
+        return new ContactView(this, idOf(record), chunk(record).get(positionOf(record)) == PERSON ? "person" : "organization");
+    }
+
+    // Moves the records of the live rows to the front, keeping their order
+    private void compactRows() {
+        int target = 0;
+        for (int row = 0; row < liveRows.rows(); row++) {
+            if (!liveRows.isRemoved(row)) {
+                records[target++] = records[row];
+            }
+        }
+        liveRows.compacted();
+    }
+
+    // Removed rows keep their record and so their id until the rows are compacted
+    private int rowOf(long id) {
+        int low = 0;
+        int high = liveRows.rows() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = idOf(records[middle]);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return liveRows.isRemoved(middle) ? -1 : middle;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    String[] fieldsOf(String type) {
+        return ("person".equals(type) ? PERSON_FIELDS : ORGANIZATION_FIELDS).clone();
+    }
+
+    @Override
+    String value(long id, String field) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return "";
+        }
+        int index = fieldIndex(records[row], field);
+        return index < 0 ? "" : values(records[row])[index];
+    }
+
+    @Override
+    void set(long id, String field, String value, boolean edited) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return;
+        }
+        long record = records[row];
+        int index = fieldIndex(record, field);
+        if (index < 0) {
+            return;
+        }
+        ByteBuffer chunk = chunk(record);
+        int position = positionOf(record);
+        String[] values = values(record);
+        values[index] = value;
+        long lastEdit = edited ? AbstractContact.currentMillis() : chunk.getLong(position + 17);
+        liveBytes -= recordSize(record);
+        records[row] = append(chunk.get(position), id, chunk.getLong(position + 9), lastEdit, values);
+    }
+
+    @Override
+    long createdMillis(long id) {
+        int row = rowOf(id);
+        return row < 0 ? 0 : chunk(records[row]).getLong(positionOf(records[row]) + 9);
+    }
+
+    @Override
+    long lastEditMillis(long id) {
+        int row = rowOf(id);
+        return row < 0 ? 0 : chunk(records[row]).getLong(positionOf(records[row]) + 17);
+    }
+
+    @Override
+    void restoreTimes(long id, long createdMillis, long lastEditMillis) {
+        int row = rowOf(id);
+        if (row >= 0) {
+            // Times have a fixed size, so they are changed in place
+            ByteBuffer chunk = chunk(records[row]);
+            int position = positionOf(records[row]);
+            chunk.putLong(position + 9, createdMillis);
+            chunk.putLong(position + 17, lastEditMillis);
+        }
+    }
+
+    @Override
+    String searchTextOf(long id) {
+        int row = rowOf(id);
+        return row < 0 ? "" : new TextDecoder().decode(records[row]).toString();
+    }
+
+    private long append(byte type, long id, long created, long lastEdit, String[] values) {
+        byte[][] encoded = new byte[values.length][];
+        int textLength = Math.max(values.length - 1, 0);
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+            textLength += encoded[i].length;
+        }
+        int length = HEADER_SIZE + 4 * values.length + textLength;
+        ByteBuffer chunk = reserve(length);
+        int start = chunk.position();
+        chunk.put(type).putLong(id).putLong(created).putLong(lastEdit).put((byte) values.length);
+        for (byte[] value : encoded) {
+            chunk.putInt(value.length);
+        }
+        for (int i = 0; i < encoded.length; i++) {
+            if (i > 0) {
+                chunk.put((byte) ' ');
+            }
+            chunk.put(encoded[i]);
+        }
+        liveBytes += length;
+        return location(start);
+    }
+
+    // Arena with room for a record of the given length, positioned where it goes; records never cross arenas
+    private ByteBuffer reserve(int length) {
+        ByteBuffer last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (last == null || last.remaining() < length) {
+            last = ByteBuffer.allocateDirect(Math.max(chunkSize, length));
+            chunks.add(last);
+        }
+        return last;
+    }
+
+    private long location(int position) {
+        return (long) (chunks.size() - 1) << 32 | position;
+    }
+
+    private ByteBuffer chunk(long record) {
+        return chunks.get(chunkOf(record));
+    }
+
+    private static int chunkOf(long record) {
+        return (int) (record >>> 32);
+    }
+
+    private static int positionOf(long record) {
+        return (int) record;
+    }
+
+    private long idOf(long record) {
+        return chunk(record).getLong(positionOf(record) + 1);
+    }
+
+    private int recordSize(long record) {
+        return recordSize(record, chunks);
+    }
+
+    private static int recordSize(long record, List<ByteBuffer> arenas) {
+        ByteBuffer chunk = arenas.get(chunkOf(record));
+        int position = positionOf(record);
+        int fieldCount = chunk.get(position + 25);
+        int length = HEADER_SIZE + 4 * fieldCount + Math.max(fieldCount - 1, 0);
+        for (int i = 0; i < fieldCount; i++) {
+            length += chunk.getInt(position + HEADER_SIZE + 4 * i);
+        }
+        return length;
+    }
+
+    private int fieldIndex(long record, String field) {
+        String[] fields = chunk(record).get(positionOf(record)) == PERSON ? PERSON_FIELDS : ORGANIZATION_FIELDS;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals(field)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String[] values(long record) {
+        ByteBuffer chunk = chunk(record);
+        int position = positionOf(record);
+        int fieldCount = chunk.get(position + 25);
+        String[] values = new String[fieldCount];
+        int at = position + HEADER_SIZE + 4 * fieldCount;
+        for (int i = 0; i < fieldCount; i++) {
+            byte[] bytes = new byte[chunk.getInt(position + HEADER_SIZE + 4 * i)];
+            chunk.get(at, bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+            at += bytes.length + 1;
+        }
+        return values;
+    }
+
+    private int textStart(long record) {
+        return positionOf(record) + HEADER_SIZE + 4 * chunk(record).get(positionOf(record) + 25);
+    }
+
+    // The query is lower-cased ASCII, so only ASCII letters of the text need folding, as Pattern.CASE_INSENSITIVE does
+    private boolean containsIgnoreCase(long record, byte[] needle) {
+        ByteBuffer chunk = chunk(record);
+        int start = textStart(record);
+        int end = positionOf(record) + recordSize(record);
+        for (int i = start; i <= end - needle.length; i++) {
+            int matched = 0;
+            while (matched < needle.length && lowerCase(chunk.get(i + matched)) == needle[matched]) {
+                matched++;
+            }
+            if (matched == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte lowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    // Decodes search texts into one reused char buffer
+    private class TextDecoder {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer[] sources = new ByteBuffer[0];
+        private CharBuffer text = CharBuffer.allocate(256);
+
+        // Arenas added since the decoder was created are picked up as they are met
+        CharBuffer decode(long record) {
+            int chunk = chunkOf(record);
+            if (chunk >= sources.length) {
+                sources = Arrays.copyOf(sources, chunks.size());
+            }
+            if (sources[chunk] == null) {
+                sources[chunk] = chunks.get(chunk).duplicate();
+            }
+            ByteBuffer source = sources[chunk];
+            int start = textStart(record);
+            int length = positionOf(record) + recordSize(record) - start;
+            if (text.capacity() < length) {
+                text = CharBuffer.allocate(length);
+            }
+            source.clear().position(start).limit(start + length);
+            text.clear();
+            decoder.reset();
+            decoder.decode(source, text, true);
+            decoder.flush(text);
+            return text.flip();
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package guru.springframework;
 
 public class Organization extends AbstractContact {
-    private String organizationName;
-    private String address;
-    private String phoneNumber;
+    private volatile String organizationName;
+    private volatile String address;
+    private volatile String phoneNumber;
 
     public Organization(String organizationName, String address, String phoneNumber) {
-        this.organizationName = organizationName;
-        this.address = address;
-        this.phoneNumber = validatePhoneNumber(phoneNumber); // Validate phone number
+        this.organizationName = ValuePool.intern(organizationName);
+        this.address = ValuePool.intern(address);
+        this.phoneNumber = ValuePool.intern(validatePhoneNumber(phoneNumber)); // Validate phone number
+    }
+
+    // Empty organization to be filled through restoreField
+    Organization() {
+        this.organizationName = "";
+        this.address = "";
+        this.phoneNumber = "[no number]";
+    }
+
+    @Override
+    public String getType() {
+        return "organization";
     }
 
     @Override
@@ -17,13 +29,27 @@ public class Organization extends AbstractContact {
     }
 
     @Override
-    public void updateField(String field, String newValue) {
+    public synchronized void updateField(String field, String newValue) {
+        String oldValue = getFieldValue(field);
+        newValue = ValuePool.intern(newValue);
         switch (field) {
             case "organizationName": this.organizationName = newValue; break;
             case "address": this.address = newValue; break;
             case "phoneNumber": this.phoneNumber = validatePhoneNumber(newValue); break;
         }
         updateLastEditTime();
+        fieldUpdated(field, oldValue, getFieldValue(field));
+    }
+
+    @Override
+    void restoreField(String field, String value) {
+        value = ValuePool.intern(value);
+        switch (field) {
+            case "organizationName": this.organizationName = value; break;
+            case "address": this.address = value; break;
+            case "phoneNumber": this.phoneNumber = value; break;
+        }
+        invalidateSearchText();
     }
 
     @Override
@@ -37,7 +63,7 @@ public class Organization extends AbstractContact {
     }
 
     @Override
-    public String getAllFieldsForSearch() {
+    protected String buildSearchText() {
         return organizationName + " " + address + " " + phoneNumber;
     }
 
@@ -46,8 +72,8 @@ public class Organization extends AbstractContact {
         System.out.println("Organization name: " + organizationName);
         System.out.println("Address: " + address);
         System.out.println("Phone Number: " + phoneNumber);
-        System.out.println("Time created: " + createdTime);
-        System.out.println("Time last edit: " + lastEditTime);
+        System.out.println("Time created: " + getCreatedTime());
+        System.out.println("Time last edit: " + getLastEditTime());
     }
 
 }
@@ -1,28 +1,44 @@
 package guru.springframework;
 
 public class Person extends AbstractContact {
-    private String name;
-    private String surname;
-    private String birthDate;
-    private String gender;
-    private String phoneNumber;
+    private volatile String name;
+    private volatile String surname;
+    private volatile String birthDate;
+    private volatile String gender;
+    private volatile String phoneNumber;
 
     public Person(String name, String surname, String phoneNumber) {
-        this.name = name;
-        this.surname = surname;
+        this.name = ValuePool.intern(name);
+        this.surname = ValuePool.intern(surname);
+        this.phoneNumber = "";
+        assignPhoneNumber(phoneNumber);
+        this.birthDate = "[no data]";
+        this.gender = "[no data]";
+    }
+
+    // Empty person to be filled through restoreField
+    Person() {
+        this.name = "";
+        this.surname = "";
         this.phoneNumber = "";
-        setPhoneNumber(phoneNumber);
         this.birthDate = "[no data]";
         this.gender = "[no data]";
     }
 
+    @Override
+    public String getType() {
+        return "person";
+    }
+
     @Override
     public String[] getEditableFields() {
         return new String[]{"name", "surname", "birthDate", "gender", "phoneNumber"};
     }
 
     @Override
-    public void updateField(String field, String newValue) {
+    public synchronized void updateField(String field, String newValue) {
+        String oldValue = getFieldValue(field);
+        newValue = ValuePool.intern(newValue);
         switch (field) {
             case "name":
                 this.name = newValue;
@@ -37,10 +53,34 @@ public class Person extends AbstractContact {
                 this.gender = newValue;
                 break;
             case "phoneNumber":
-                setPhoneNumber(newValue);  // Use setter to validate the phone number
+                assignPhoneNumber(newValue);  // Validates the phone number
                 break;
         }
         updateLastEditTime();
+        fieldUpdated(field, oldValue, getFieldValue(field));
+    }
+
+    @Override
+    void restoreField(String field, String value) {
+        value = ValuePool.intern(value);
+        switch (field) {
+            case "name":
+                this.name = value;
+                break;
+            case "surname":
+                this.surname = value;
+                break;
+            case "birthDate":
+                this.birthDate = value;
+                break;
+            case "gender":
+                this.gender = value;
+                break;
+            case "phoneNumber":
+                this.phoneNumber = value;
+                break;
+        }
+        invalidateSearchText();
     }
 
     @Override
@@ -62,7 +102,7 @@ public class Person extends AbstractContact {
     }
 
     @Override
-    public String getAllFieldsForSearch() {
+    protected String buildSearchText() {
         return name + " " + surname + " " + birthDate + " " + gender + " " + getPhoneNumber();
     }
 
@@ -73,18 +113,23 @@ public class Person extends AbstractContact {
         System.out.println("Birth date: " + birthDate);
         System.out.println("Gender: " + gender);
         System.out.println("Phone Number: " + getPhoneNumber());
-        System.out.println("Time created: " + createdTime);
-        System.out.println("Time last edit: " + lastEditTime);
+        System.out.println("Time created: " + getCreatedTime());
+        System.out.println("Time last edit: " + getLastEditTime());
     }
 
-    // Additional method to validate and set phone number
+    // Same as updateField("phoneNumber", ...), so the book sees the change
     public void setPhoneNumber(String phoneNumber) {
+        updateField("phoneNumber", phoneNumber);
+    }
+
+    private void assignPhoneNumber(String phoneNumber) {
         if (isValidPhoneNumber(phoneNumber)) {
-            this.phoneNumber = phoneNumber;
+            this.phoneNumber = ValuePool.intern(phoneNumber);
         } else {
             System.out.println("Wrong number format!");
             this.phoneNumber = "[no number]";
         }
+        invalidateSearchText();
     }
 
     public String getPhoneNumber() {
@@ -92,7 +137,7 @@ public class Person extends AbstractContact {
     }
 
     private boolean isValidPhoneNumber(String phoneNumber) {
-       return !(validatePhoneNumber(phoneNumber).equals("[no number]"));
+        return PhoneNumberValidator.isValid(phoneNumber);
     }
 }
 
@@ -1,48 +1,742 @@
 package guru.springframework;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class PhoneBook implements Serializable {
-    private List<AbstractContact> contacts = new ArrayList<>();
+public class PhoneBook implements Serializable, ContactBook {
+    private static final int MIN_SHARD_SLOTS = 1024;
+    private static final int MIN_PARALLEL_BATCH = 1024;
+    private static final int SEARCH_CACHE_CAPACITY = 512;
+    // Regex searches over at least this many loaded contacts scan shards of the slots on the common ForkJoin pool
+    static final int PARALLEL_SEARCH_THRESHOLD = 50_000;
+    private static final List<String> NAME_FIELDS = List.of("name", "surname", "organizationName");
 
+    private final ContactSlots contacts = new ContactSlots();
+    private final Map<Long, AbstractContact> contactsById = new HashMap<>();
+    private final TokenIndex tokenIndex = new TokenIndex();
+    private final PhoneTrie phoneIndex = new PhoneTrie();
+    private final TrigramIndex nameIndex = new TrigramIndex();
+    private final Map<String, FieldIndex> fieldIndexes = new HashMap<>();
+    // Rebuilt by readObject; listeners are not serialized and have to be added again
+    private transient List<PhoneBookListener> listeners = new CopyOnWriteArrayList<>();
+    private transient SearchCache searchCache = new SearchCache(SEARCH_CACHE_CAPACITY);
+    // Bumped by every change that can alter search results, cached results are only valid at their version
+    private transient long version;
+    private long nextId = 1;
+    private final int parallelSearchThreshold;
+    // Records of an opened snapshot that have not been moved into the structures above yet
+    private transient ContactSnapshot snapshot;
+    private transient Map<Integer, AbstractContact> snapshotContacts;
+
+    public PhoneBook() {
+        this(PARALLEL_SEARCH_THRESHOLD);
+    }
+
+    // Lets tests make small books search in parallel
+    PhoneBook(int parallelSearchThreshold) {
+        this.parallelSearchThreshold = parallelSearchThreshold;
+    }
+
+    // Opens a snapshot without reading it; records are decoded on access and only loaded
+    // as a whole before the first change or index lookup
+    public static PhoneBook openSnapshot(Path file) throws IOException {
+        PhoneBook phoneBook = new PhoneBook();
+        phoneBook.snapshot = ContactSnapshot.open(file);
+        phoneBook.snapshotContacts = new HashMap<>();
+        phoneBook.nextId = phoneBook.snapshot.nextId();
+        return phoneBook;
+    }
+
+    // Records of an opened snapshot are not serializable, so they are loaded first
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ensureLoaded();
+        out.defaultWriteObject();
+    }
+
+    // Contacts point back at the book again so that their edits keep reaching the indexes
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        listeners = new CopyOnWriteArrayList<>();
+        searchCache = new SearchCache(SEARCH_CACHE_CAPACITY);
+        for (AbstractContact contact : contactsById.values()) {
+            contact.attach(this, contact.getId());
+        }
+    }
+
+    // Writes the whole book in the binary snapshot format
+    public void writeSnapshot(Path file) throws IOException {
+        ContactSnapshot.write(file, this);
+    }
+
+    // A contact can be in one book once; add a copy to list the same person twice
+    @Override
     public void addContact(AbstractContact contact) {
+        add(contact);
+    }
+
+    private void add(AbstractContact contact) {
+        // Adding it again would give it a second slot and id while its first slot stays in the listing
+        if (contact.getOwner() != null) {
+            throw new IllegalArgumentException("Contact " + contact.getId() + " is already in a phone book");
+        }
+        ensureLoaded();
+        insert(contact, nextId++);
+        version++;
+        for (PhoneBookListener listener : listeners) {
+            listener.contactAdded(contact);
+        }
+    }
+
+    // Puts back a contact under the id it had before, e.g. when replaying a log; listeners are not notified
+    void restoreContact(AbstractContact contact, long id) {
+        ensureLoaded();
+        insert(contact, id);
+        nextId = Math.max(nextId, id + 1);
+        version++;
+    }
+
+    private void insert(AbstractContact contact, long id) {
+        contact.attach(this, id);
         contacts.add(contact);
+        contactsById.put(id, contact);
+        tokenIndex.add(id, contact.getAllFieldsForSearch());
+        phoneIndex.add(id, contact.getFieldValue("phoneNumber"));
+        nameIndex.add(id, namesOf(contact));
+        for (FieldIndex fieldIndex : fieldIndexes.values()) {
+            fieldIndex.add(contact);
+        }
+    }
+
+    long nextId() {
+        return nextId;
+    }
+
+    private void ensureLoaded() {
+        if (snapshot == null) {
+            return;
+        }
+        ContactSnapshot source = snapshot;
+        Map<Integer, AbstractContact> decoded = snapshotContacts;
+        snapshot = null;
+        snapshotContacts = null;
+        for (int i = 0; i < source.size(); i++) {
+            AbstractContact contact = decoded.get(i);
+            if (contact == null) {
+                contact = source.read(i);
+            }
+            insert(contact, contact.getId());
+        }
+    }
+
+    // Decodes a snapshot record once so that repeated access returns the same contact
+    private AbstractContact snapshotContact(int position) {
+        return snapshotContacts.computeIfAbsent(position, key -> {
+            AbstractContact contact = snapshot.read(key);
+            contact.attach(this, contact.getId());
+            return contact;
+        });
+    }
+
+    // Contact at the position for read-only use, snapshot records are decoded without being kept
+    AbstractContact peek(int index) {
+        if (snapshot == null) {
+            return contacts.get(index);
+        }
+        AbstractContact contact = snapshotContacts.get(index);
+        return contact != null ? contact : snapshot.read(index);
+    }
+
+    public void addListener(PhoneBookListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(PhoneBookListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Adds many contacts at once, e.g. from a bulk import
+    public void addContacts(Collection<? extends AbstractContact> batch) {
+        for (AbstractContact contact : batch) {
+            add(contact);
+        }
+    }
+
+    // Applies many field edits in one pass and returns the rejected ones: those naming an unknown contact or a field
+    // the contact does not have, and invalid phone numbers. Edits are validated in parallel, each contact gets all of
+    // its edits under its own lock with a single edit time, and the indexes are updated once per contact afterwards.
+    // Listeners hear of every field whose value changed, with the value it had before the batch.
+    public List<FieldUpdate> applyBatch(List<FieldUpdate> updates) {
+        List<FieldUpdate> rejected = new ArrayList<>();
+        Map<AbstractContact, List<FieldUpdate>> byContact = validateBatch(updates, rejected);
+        Stream<Map.Entry<AbstractContact, List<FieldUpdate>>> entries = byContact.size() >= MIN_PARALLEL_BATCH
+                ? byContact.entrySet().parallelStream() : byContact.entrySet().stream();
+        indexBatch(entries.map(entry -> applyEdits(entry.getKey(), entry.getValue())).toList());
+        return rejected;
+    }
+
+    // Valid updates grouped by their contact in batch order, the others are added to rejected
+    Map<AbstractContact, List<FieldUpdate>> validateBatch(List<FieldUpdate> updates, List<FieldUpdate> rejected) {
+        ensureLoaded();
+        Stream<FieldUpdate> stream = updates.size() >= MIN_PARALLEL_BATCH ? updates.parallelStream() : updates.stream();
+        Map<Boolean, List<FieldUpdate>> checked = stream.collect(Collectors.partitioningBy(this::isValid));
+        rejected.addAll(checked.get(false));
+        Map<AbstractContact, List<FieldUpdate>> byContact = new LinkedHashMap<>();
+        for (FieldUpdate update : checked.get(true)) {
+            byContact.computeIfAbsent(contactsById.get(update.contactId()), key -> new ArrayList<>()).add(update);
+        }
+        return byContact;
     }
 
+    private boolean isValid(FieldUpdate update) {
+        AbstractContact contact = contactsById.get(update.contactId());
+        return contact != null && isValidEdit(contact, update.field(), update.value());
+    }
+
+    // Whether applyBatch accepts setting the field of the contact to the value
+    static boolean isValidEdit(AbstractContact contact, String field, String value) {
+        return value != null && FieldIndex.hasField(contact, field)
+                && (!"phoneNumber".equals(field) || PhoneNumberValidator.isValid(value));
+    }
+
+    private static BatchEdit applyEdits(AbstractContact contact, List<FieldUpdate> edits) {
+        synchronized (contact) {
+            String oldText = contact.getAllFieldsForSearch();
+            String oldNames = namesOf(contact);
+            Map<String, String> oldValues = new LinkedHashMap<>();
+            for (FieldUpdate edit : edits) {
+                oldValues.putIfAbsent(edit.field(), contact.getFieldValue(edit.field()));
+                contact.restoreField(edit.field(), edit.value());
+            }
+            oldValues.entrySet().removeIf(old -> Objects.equals(old.getValue(), contact.getFieldValue(old.getKey())));
+            contact.updateLastEditTime();
+            return new BatchEdit(contact, oldText, oldNames, oldValues);
+        }
+    }
+
+    // Brings the indexes in line with the current values of the edited contacts; contacts removed since their edit
+    // was applied are skipped
+    void indexBatch(List<BatchEdit> edits) {
+        for (BatchEdit edit : edits) {
+            AbstractContact contact = edit.contact();
+            long id = contact.getId();
+            if (edit.oldValues().isEmpty() || contactsById.get(id) != contact) {
+                continue;
+            }
+            version++;
+            String text = contact.getAllFieldsForSearch();
+            tokenIndex.update(id, edit.oldText(), text, text);
+            String oldPhoneNumber = edit.oldValues().get("phoneNumber");
+            if (oldPhoneNumber != null) {
+                phoneIndex.remove(id, oldPhoneNumber);
+                phoneIndex.add(id, contact.getFieldValue("phoneNumber"));
+            }
+            String names = namesOf(contact);
+            if (!names.equals(edit.oldNames())) {
+                nameIndex.update(id, edit.oldNames(), names, names);
+            }
+            for (Map.Entry<String, String> old : edit.oldValues().entrySet()) {
+                String field = old.getKey();
+                String newValue = contact.getFieldValue(field);
+                FieldIndex fieldIndex = fieldIndexes.get(field);
+                if (fieldIndex != null) {
+                    fieldIndex.update(id, old.getValue(), newValue);
+                }
+                for (PhoneBookListener listener : listeners) {
+                    listener.contactUpdated(contact, field, old.getValue(), newValue);
+                }
+            }
+        }
+    }
+
+    // A contact's search text and names before its batch edits, and the old values of the fields they changed
+    record BatchEdit(AbstractContact contact, String oldText, String oldNames, Map<String, String> oldValues) {
+    }
+
+    // Results are cached per query until the book changes
+    @Override
     public List<AbstractContact> search(String query) {
+        long searchedVersion = version;
+        List<AbstractContact> cached = searchCache.results(query, searchedVersion);
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+        List<AbstractContact> results;
+        if (snapshot == null && size() >= parallelSearchThreshold && !TokenIndex.isLiteral(query)) {
+            Pattern pattern = searchCache.pattern(query);
+            int shardSlots = Math.max(MIN_SHARD_SLOTS, contacts.slotCount() / (4 * ForkJoinPool.getCommonPoolParallelism()));
+            results = ForkJoinPool.commonPool().invoke(new SearchShard(pattern, 0, contacts.slotCount(), shardSlots));
+        } else {
+            results = new ArrayList<>();
+            scanMatches(query, true, results::add);
+        }
+        searchCache.put(query, searchedVersion, results);
+        return results;
+    }
+
+    // Hit and miss counts of the search result and pattern caches
+    public CacheStats searchCacheStats() {
+        return searchCache.stats();
+    }
+
+    // While disabled every search is computed and nothing is cached
+    public void setSearchCacheEnabled(boolean enabled) {
+        searchCache.setEnabled(enabled);
+    }
+
+    // Up to limit matches after skipping the first offset of them; served from cached results when the query has
+    // them, otherwise scanning stops as soon as the page is full
+    public List<AbstractContact> search(String query, int offset, int limit) {
+        List<AbstractContact> results = new ArrayList<>();
+        if (limit <= 0) {
+            return results;
+        }
+        List<AbstractContact> cached = searchCache.results(query, version);
+        if (cached != null) {
+            int from = Math.min(Math.max(offset, 0), cached.size());
+            results.addAll(cached.subList(from, (int) Math.min((long) from + limit, cached.size())));
+            return results;
+        }
+        int[] toSkip = {offset};
+        scanMatches(query, true, contact -> {
+            if (toSkip[0] > 0) {
+                toSkip[0]--;
+                return true;
+            }
+            results.add(contact);
+            return results.size() < limit;
+        });
+        return results;
+    }
+
+    // Hands the matches to the action in result order until it returns false; the action must not change the book
+    public void forEachMatch(String query, Predicate<? super AbstractContact> action) {
+        scanMatches(query, true, action);
+    }
+
+    // Number of matching contacts, taken from cached results or counted without collecting them
+    public int countMatches(String query) {
+        List<AbstractContact> cached = searchCache.results(query, version);
+        if (cached != null) {
+            return cached.size();
+        }
+        int[] count = {0};
+        scanMatches(query, false, contact -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    // Plain text queries only look at the contacts whose tokens contain the query, produced in id order as the
+    // action takes them, anything else is matched as a regex against every contact. Unless keep is set, snapshot records are decoded without being kept.
+    private void scanMatches(String query, boolean keep, Predicate<? super AbstractContact> action) {
+        if (TokenIndex.isLiteral(query)) {
+            ensureLoaded();
+            String normalizedQuery = TokenIndex.normalize(query);
+            for (Iterator<Long> ids = tokenIndex.containing(TokenIndex.longestPiece(query)); ids.hasNext(); ) {
+                AbstractContact contact = contactsById.get(ids.next());
+                if (contact.getNormalizedSearchText().contains(normalizedQuery) && !action.test(contact)) {
+                    return;
+                }
+            }
+            return;
+        }
+        Matcher matcher = searchCache.pattern(query).matcher("");
+        if (snapshot != null) {
+            for (int i = 0; i < size(); i++) {
+                AbstractContact record = peek(i);
+                if (matcher.reset(record.getAllFieldsForSearch()).find() && !action.test(keep ? contactAt(i) : record)) {
+                    return;
+                }
+            }
+            return;
+        }
+        for (int slot = 0; slot < contacts.slotCount(); slot++) {
+            AbstractContact contact = contacts.atSlot(slot);
+            if (contact != null && matcher.reset(contact.getAllFieldsForSearch()).find() && !action.test(contact)) {
+                return;
+            }
+        }
+    }
+
+    private List<AbstractContact> scan(Pattern pattern, int fromSlot, int toSlot) {
+        List<AbstractContact> results = new ArrayList<>();
+        Matcher matcher = pattern.matcher("");
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            AbstractContact contact = contacts.atSlot(slot);
+            if (contact != null && matcher.reset(contact.getAllFieldsForSearch()).find()) {
+                results.add(contact);
+            }
+        }
+        return results;
+    }
+
+    // Splits a slot range until it is small enough to scan with one matcher, results are joined in slot order
+    private class SearchShard extends RecursiveTask<List<AbstractContact>> {
+        private final Pattern pattern;
+        private final int fromSlot;
+        private final int toSlot;
+        private final int shardSlots;
+
+        SearchShard(Pattern pattern, int fromSlot, int toSlot, int shardSlots) {
+            this.pattern = pattern;
+            this.fromSlot = fromSlot;
+            this.toSlot = toSlot;
+            this.shardSlots = shardSlots;
+        }
+
+        @Override
+        protected List<AbstractContact> compute() {
+            if (toSlot - fromSlot <= shardSlots) {
+                return scan(pattern, fromSlot, toSlot);
+            }
+            int middle = (fromSlot + toSlot) >>> 1;
+            SearchShard left = new SearchShard(pattern, fromSlot, middle, shardSlots);
+            left.fork();
+            List<AbstractContact> right = new SearchShard(pattern, middle, toSlot, shardSlots).compute();
+            List<AbstractContact> results = left.join();
+            results.addAll(right);
+            return results;
+        }
+    }
+
+    // Contacts having a word that starts with the given prefix, ignoring case
+    public List<AbstractContact> searchPrefix(String prefix) {
+        ensureLoaded();
+        return contactsFor(tokenIndex.withPrefix(TokenIndex.normalize(prefix.trim())));
+    }
+
+    // Contacts with a name word within a few typos of every query word, closest first. The allowed edit distance
+    // is 1 for query words of up to 4 letters and 2 for longer ones.
+    public List<AbstractContact> searchFuzzy(String query) {
+        return searchFuzzy(query, -1);
+    }
+
+    // Same with a fixed edit distance allowed per query word
+    public List<AbstractContact> searchFuzzy(String query, int maxDistance) {
+        ensureLoaded();
+        Map<Long, Integer> distances = null;
+        for (String queryWord : TrigramIndex.words(query)) {
+            int allowed = maxDistance >= 0 ? maxDistance : queryWord.length() <= 4 ? 1 : 2;
+            Map<Long, Integer> closest = new HashMap<>();
+            for (Map.Entry<String, Integer> similar : nameIndex.similarWords(queryWord, allowed).entrySet()) {
+                for (long id : nameIndex.idsOf(similar.getKey())) {
+                    closest.merge(id, similar.getValue(), Math::min);
+                }
+            }
+            if (distances == null) {
+                distances = closest;
+            } else {
+                distances.keySet().retainAll(closest.keySet());
+                distances.replaceAll((id, distance) -> distance + closest.get(id));
+            }
+        }
+        if (distances == null) {
+            return new ArrayList<>();
+        }
+        Map<Long, Integer> total = distances;
+        List<Long> ids = new ArrayList<>(total.keySet());
+        ids.sort(Comparator.<Long>comparingInt(total::get).thenComparing(Comparator.naturalOrder()));
+        return contactsFor(ids);
+    }
+
+    private static String namesOf(AbstractContact contact) {
+        return contact.getFieldValue("name") + " " + contact.getFieldValue("surname") + " "
+                + contact.getFieldValue("organizationName");
+    }
+
+    // Contacts whose phone number has exactly the same digits, formatting is ignored and letters count as their
+    // keypad digit
+    public List<AbstractContact> findByPhone(String phoneNumber) {
+        ensureLoaded();
+        return contactsFor(phoneIndex.find(phoneNumber));
+    }
+
+    // Contacts whose phone number starts with the digits of the prefix, formatting is ignored and letters count as
+    // their keypad digit; an empty prefix matches every contact with a number
+    public List<AbstractContact> findByPhonePrefix(String prefix) {
+        ensureLoaded();
+        return contactsFor(phoneIndex.findByPrefix(prefix));
+    }
+
+    // Keeps an index of one of the getEditableFields, hashed for exact lookups or sorted to also answer ranges
+    public void createIndex(String field, boolean sorted) {
+        ensureLoaded();
+        FieldIndex fieldIndex = new FieldIndex(field, sorted);
+        for (int slot = 0; slot < contacts.slotCount(); slot++) {
+            AbstractContact contact = contacts.atSlot(slot);
+            if (contact != null) {
+                fieldIndex.add(contact);
+            }
+        }
+        fieldIndexes.put(field, fieldIndex);
+    }
+
+    public void dropIndex(String field) {
+        fieldIndexes.remove(field);
+    }
+
+    // Contacts having the field with exactly this value, in listing order; scans the book if the field is not indexed
+    public List<AbstractContact> findBy(String field, String value) {
+        FieldIndex fieldIndex = fieldIndexes.get(field);
+        if (fieldIndex == null) {
+            return filter(contact -> FieldIndex.hasField(contact, field) && value != null
+                    && value.equals(contact.getFieldValue(field)));
+        }
+        List<Long> ids = new ArrayList<>(fieldIndex.find(value));
+        Collections.sort(ids);
+        return contactsFor(ids);
+    }
+
+    // Contacts whose field value lies between from and to in String order, both inclusive and null for an open
+    // side, in listing order; scans the book unless the field has a sorted index
+    public List<AbstractContact> findRange(String field, String from, String to) {
+        FieldIndex fieldIndex = fieldIndexes.get(field);
+        if (fieldIndex == null || !fieldIndex.isSorted()) {
+            return filter(contact -> {
+                if (!FieldIndex.hasField(contact, field)) {
+                    return false;
+                }
+                String value = contact.getFieldValue(field);
+                if (value == null) {
+                    return false; // Not indexed either
+                }
+                return (from == null || value.compareTo(from) >= 0) && (to == null || value.compareTo(to) <= 0);
+            });
+        }
+        List<Long> ids = fieldIndex.range(from, to);
+        Collections.sort(ids);
+        return contactsFor(ids);
+    }
+
+    private List<AbstractContact> filter(Predicate<AbstractContact> condition) {
         List<AbstractContact> results = new ArrayList<>();
-        Pattern pattern = Pattern.compile(query, Pattern.CASE_INSENSITIVE);
-        for (AbstractContact contact : contacts) {
-            if (pattern.matcher(contact.getAllFieldsForSearch()).find()) {
+        if (snapshot != null) {
+            for (int i = 0; i < size(); i++) {
+                if (condition.test(peek(i))) {
+                    results.add(contactAt(i));
+                }
+            }
+            return results;
+        }
+        for (int slot = 0; slot < contacts.slotCount(); slot++) {
+            AbstractContact contact = contacts.atSlot(slot);
+            if (contact != null && condition.test(contact)) {
                 results.add(contact);
             }
         }
         return results;
     }
 
+    private List<AbstractContact> contactsFor(Collection<Long> ids) {
+        List<AbstractContact> results = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            results.add(contactsById.get(id));
+        }
+        return results;
+    }
+
+    @Override
     public void listContacts() {
-        for (int i = 0; i < contacts.size(); i++) {
-            System.out.println((i + 1) + ". " + contacts.get(i).getAllFieldsForSearch());
+        print(0, size());
+    }
+
+    // Prints up to limit contacts starting at the 0-based offset, numbered by their position in the book
+    public void listContacts(int offset, int limit) {
+        print(offset, limit);
+    }
+
+    private void print(int offset, int limit) {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        int start = Math.max(offset, 0);
+        int end = (int) Math.min((long) start + limit, size());
+        if (snapshot != null) {
+            for (int i = start; i < end; i++) {
+                out.println((i + 1) + ". " + peek(i).getAllFieldsForSearch());
+            }
+        } else {
+            // Walks the slots from the first contact of the page, so a page costs O(log n + limit)
+            Iterator<AbstractContact> page = new ContactIterator(start);
+            for (int i = start; i < end && page.hasNext(); i++) {
+                out.println((i + 1) + ". " + page.next().getAllFieldsForSearch());
+            }
+        }
+        out.flush();
+    }
+
+    // Up to limit contacts starting at the 0-based offset, in listing order
+    public List<AbstractContact> page(int offset, int limit) {
+        List<AbstractContact> results = new ArrayList<>(Math.max(Math.min(limit, size() - offset), 0));
+        Iterator<AbstractContact> iterator = new ContactIterator(Math.max(offset, 0));
+        while (results.size() < limit && iterator.hasNext()) {
+            results.add(iterator.next());
+        }
+        return results;
+    }
+
+    // Same as page for read-only use, snapshot records are decoded without being kept
+    List<AbstractContact> readPage(int offset, int limit) {
+        int start = Math.max(offset, 0);
+        int end = (int) Math.min((long) start + limit, size());
+        List<AbstractContact> results = new ArrayList<>(Math.max(end - start, 0));
+        if (snapshot != null) {
+            for (int i = start; i < end; i++) {
+                results.add(peek(i));
+            }
+            return results;
+        }
+        Iterator<AbstractContact> iterator = new ContactIterator(start);
+        while (results.size() < end - start && iterator.hasNext()) {
+            results.add(iterator.next());
         }
+        return results;
+    }
+
+    // Lazy view of the contacts in listing order; the book must not change while it is consumed
+    public Stream<AbstractContact> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(new ContactIterator(0), size(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 
+    // Iterates from the 0-based offset in listing order; the book must not change while it is in use
+    public Iterator<AbstractContact> iterator(int offset) {
+        return new ContactIterator(Math.max(offset, 0));
+    }
+
+    // Reads snapshot records by position until the book is loaded, then walks the slots skipping removed ones
+    private class ContactIterator implements Iterator<AbstractContact> {
+        private int position;
+        private int slot = -1;
+
+        ContactIterator(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (snapshot != null) {
+                return position < size();
+            }
+            if (slot < 0) {
+                if (position >= size()) {
+                    return false;
+                }
+                slot = contacts.slotOf(position);
+            }
+            while (slot < contacts.slotCount() && contacts.atSlot(slot) == null) {
+                slot++;
+            }
+            return slot < contacts.slotCount();
+        }
+
+        @Override
+        public AbstractContact next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            position++;
+            return snapshot != null ? snapshotContact(position - 1) : contacts.atSlot(slot++);
+        }
+    }
+
+    @Override
     public AbstractContact getContact(int index) {
-        if (index >= 0 && index < contacts.size()) {
-            return contacts.get(index); // Return the contact at the specified index
+        return contactAt(index);
+    }
+
+    private AbstractContact contactAt(int index) {
+        if (index >= 0 && index < size()) {
+            // Return the contact at the specified index
+            return snapshot != null ? snapshotContact(index) : contacts.get(index);
         }
         return null; // Return null if index is out of bounds
     }
 
+    // Contact with the given stable id, or null if there is none
+    @Override
+    public AbstractContact getContactById(long id) {
+        if (snapshot != null) {
+            int position = snapshot.positionOf(id);
+            return position < 0 ? null : snapshotContact(position);
+        }
+        return contactsById.get(id);
+    }
+
+    @Override
     public int count() {
-        return contacts.size();
+        return size();
     }
 
-    public void removeContact(AbstractContact contact) {
-        contacts.remove(contact);
+    private int size() {
+        return snapshot != null ? snapshot.size() : contacts.size();
     }
 
+    @Override
+    public void removeContact(AbstractContact contact) {
+        ensureLoaded();
+        if (contactsById.get(contact.getId()) != contact) {
+            return; // Not part of this phone book
+        }
+        contacts.remove(contact); // Constant time, the contact knows its slot
+        version++;
+        contactsById.remove(contact.getId());
+        tokenIndex.remove(contact.getId(), contact.getAllFieldsForSearch());
+        phoneIndex.remove(contact.getId(), contact.getFieldValue("phoneNumber"));
+        nameIndex.remove(contact.getId(), namesOf(contact));
+        for (FieldIndex fieldIndex : fieldIndexes.values()) {
+            fieldIndex.remove(contact);
+        }
+        for (PhoneBookListener listener : listeners) {
+            listener.contactRemoved(contact);
+        }
+        contact.detach();
+    }
 
+    // Called by a contact of this book after one of its fields changed
+    void contactUpdated(AbstractContact contact, String field, String oldValue, String newValue) {
+        ensureLoaded();
+        version++;
+        tokenIndex.update(contact.getId(), oldValue, newValue, contact.getAllFieldsForSearch());
+        if ("phoneNumber".equals(field)) {
+            phoneIndex.remove(contact.getId(), oldValue);
+            phoneIndex.add(contact.getId(), newValue);
+        } else if (NAME_FIELDS.contains(field)) {
+            nameIndex.update(contact.getId(), oldValue, newValue, namesOf(contact));
+        }
+        FieldIndex fieldIndex = fieldIndexes.get(field);
+        if (fieldIndex != null) {
+            fieldIndex.update(contact.getId(), oldValue, newValue);
+        }
+        for (PhoneBookListener listener : listeners) {
+            listener.contactUpdated(contact, field, oldValue, newValue);
+        }
+    }
 }
@@ -0,0 +1,10 @@
+package guru.springframework;
+
+// Receives every change made to a PhoneBook, after the book and its indexes have been updated
+public interface PhoneBookListener {
+    void contactAdded(AbstractContact contact);
+
+    void contactUpdated(AbstractContact contact, String field, String oldValue, String newValue);
+
+    void contactRemoved(AbstractContact contact);
+}
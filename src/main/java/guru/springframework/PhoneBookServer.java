@@ -0,0 +1,243 @@
+package guru.springframework;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// JSON over HTTP access to a ConcurrentPhoneBook for other processes on the host, every request on its own
+// virtual thread:
+//   GET    /contacts?q=query&offset=0&limit=100   matches of the query, or a page of all contacts without q
+//   GET    /contacts/{id}                         one contact
+//   POST   /contacts                              adds {"type": ..., field: value, ...}
+//   PATCH  /contacts/{id}                         sets {field: value, ...} in one edit
+//   DELETE /contacts/{id}                         removes the contact
+//   GET    /count?q=query                         number of contacts, or of matches of the query
+public class PhoneBookServer implements AutoCloseable {
+    static final int DEFAULT_LIMIT = 100;
+    // Without TCP_NODELAY the body, written after the headers, waits for the client's delayed ACK, about 40 ms per
+    // keep-alive request. The JDK reads this system property once, for every HttpServer of the process, so it is
+    // left to the process: start the JVM with -Dsun.net.httpserver.nodelay=true, as Cli serve and the tests do.
+    public static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final Gson GSON = new Gson();
+
+    private final ConcurrentPhoneBook phoneBook;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private PhoneBookServer(ConcurrentPhoneBook phoneBook, HttpServer server, ExecutorService executor) {
+        this.phoneBook = phoneBook;
+        this.server = server;
+        this.executor = executor;
+    }
+
+    // Port 0 picks a free port, see port()
+    public static PhoneBookServer start(ConcurrentPhoneBook phoneBook, InetSocketAddress address) throws IOException {
+        HttpServer server = HttpServer.create(address, 1024);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        PhoneBookServer phoneBookServer = new PhoneBookServer(phoneBook, server, executor);
+        server.createContext("/contacts", handled(phoneBookServer::handleContacts));
+        server.createContext("/count", handled(phoneBookServer::handleCount));
+        server.setExecutor(executor);
+        server.start();
+        return phoneBookServer;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // Closes the exchange after the handler; invalid requests, including malformed regex queries, get a 400 and any
+    // other failure a 500
+    private static HttpHandler handled(HttpHandler handler) {
+        return exchange -> {
+            try (exchange) {
+                try {
+                    handler.handle(exchange);
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, error(e.getMessage()));
+                } catch (RuntimeException e) {
+                    send(exchange, 500, error("Internal error"));
+                }
+            }
+        };
+    }
+
+    private void handleContacts(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals("/contacts") || path.equals("/contacts/")) {
+            switch (method) {
+                case "GET" -> list(exchange);
+                case "POST" -> add(exchange);
+                default -> send(exchange, 405, error("Method not allowed"));
+            }
+            return;
+        }
+        AbstractContact contact = contactOf(path.substring("/contacts/".length()));
+        if (contact == null) {
+            send(exchange, 404, error("No such contact"));
+            return;
+        }
+        switch (method) {
+            case "GET" -> send(exchange, 200, ContactJson.toMap(contact));
+            case "PATCH" -> edit(exchange, contact);
+            case "DELETE" -> {
+                phoneBook.removeContact(contact);
+                send(exchange, 204, null);
+            }
+            default -> send(exchange, 405, error("Method not allowed"));
+        }
+    }
+
+    private void handleCount(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            send(exchange, 405, error("Method not allowed"));
+            return;
+        }
+        String query = query(exchange).get("q");
+        int count = query == null ? phoneBook.count() : phoneBook.countMatches(query);
+        send(exchange, 200, Map.of("count", count));
+    }
+
+    private void list(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = query(exchange);
+        int offset = intParameter(parameters, "offset", 0);
+        int limit = intParameter(parameters, "limit", DEFAULT_LIMIT);
+        String query = parameters.get("q");
+        List<AbstractContact> contacts = query == null ? phoneBook.page(offset, limit) : phoneBook.search(query, offset, limit);
+        List<Map<String, Object>> body = new ArrayList<>(contacts.size());
+        for (AbstractContact contact : contacts) {
+            body.add(ContactJson.toMap(contact));
+        }
+        send(exchange, 200, body);
+    }
+
+    private void add(HttpExchange exchange) throws IOException {
+        AbstractContact contact = ContactImporter.toContact(fields(exchange));
+        if (contact == null) {
+            throw new BadRequestException("Unknown type or invalid phone number");
+        }
+        phoneBook.addContact(contact);
+        send(exchange, 201, ContactJson.toMap(contact));
+    }
+
+    // All fields are checked before any is set, so a request is applied completely or not at all
+    private void edit(HttpExchange exchange, AbstractContact contact) throws IOException {
+        List<FieldUpdate> updates = new ArrayList<>();
+        for (Map.Entry<String, String> field : fields(exchange).entrySet()) {
+            if (!PhoneBook.isValidEdit(contact, field.getKey(), field.getValue())) {
+                throw new BadRequestException("Invalid value for " + field.getKey());
+            }
+            updates.add(new FieldUpdate(contact.getId(), field.getKey(), field.getValue()));
+        }
+        if (!phoneBook.applyBatch(updates).isEmpty()) {
+            send(exchange, 404, error("No such contact"));
+            return;
+        }
+        send(exchange, 200, ContactJson.toMap(contact));
+    }
+
+    private AbstractContact contactOf(String id) {
+        try {
+            return phoneBook.getContactById(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Members of the JSON object in the request body, with numbers taken as their text
+    private static Map<String, String> fields(HttpExchange exchange) throws IOException {
+        JsonElement body;
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            body = JsonParser.parseReader(reader);
+        } catch (JsonParseException e) {
+            throw new BadRequestException("Malformed JSON");
+        }
+        if (!body.isJsonObject()) {
+            throw new BadRequestException("Expected a JSON object");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (Map.Entry<String, JsonElement> member : ((JsonObject) body).entrySet()) {
+            if (!member.getValue().isJsonPrimitive()) {
+                throw new BadRequestException("Expected a text value for " + member.getKey());
+            }
+            fields.put(member.getKey(), member.getValue().getAsString());
+        }
+        return fields;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Expected a number for " + name);
+        }
+    }
+
+    private static Map<String, Object> error(String message) {
+        return Map.of("error", message);
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = GSON.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static class BadRequestException extends IllegalArgumentException {
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package guru.springframework;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Durable PhoneBook kept in a directory as a binary snapshot plus a write-ahead log of the changes made since.
+// Opening the storage maps the snapshot and replays the log tail; every later change is appended to the log.
+public class PhoneBookStorage implements Closeable {
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    static final String LOG_FILE = "changes.log";
+    static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 10;
+
+    private final Path directory;
+    private final PhoneBook phoneBook;
+    private final WriteAheadLog log;
+
+    private PhoneBookStorage(Path directory, PhoneBook phoneBook, WriteAheadLog log) {
+        this.directory = directory;
+        this.phoneBook = phoneBook;
+        this.log = log;
+    }
+
+    public static PhoneBookStorage open(Path directory) throws IOException {
+        return open(directory, DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+
+    public static PhoneBookStorage open(Path directory, long commitIntervalMillis) throws IOException {
+        Files.createDirectories(directory);
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        PhoneBook phoneBook = Files.exists(snapshotFile) ? PhoneBook.openSnapshot(snapshotFile) : new PhoneBook();
+
+        Path logFile = directory.resolve(LOG_FILE);
+        long validLength = WriteAheadLog.replay(logFile, phoneBook);
+        if (Files.exists(logFile) && Files.size(logFile) > validLength) {
+            // Drop a record that was only partly written when the process stopped
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+
+        WriteAheadLog log = new WriteAheadLog(logFile, commitIntervalMillis);
+        phoneBook.addListener(log);
+        return new PhoneBookStorage(directory, phoneBook, log);
+    }
+
+    public PhoneBook getPhoneBook() {
+        return phoneBook;
+    }
+
+    // Blocks until every change made so far is on disk; otherwise changes are committed in groups
+    public void sync() throws IOException {
+        log.sync();
+    }
+
+    // Writes a fresh snapshot of the whole book and drops the log records it captured; changes made while the
+    // snapshot is written stay in the log
+    public void checkpoint() throws IOException {
+        log.sync();
+        long snapshotStart = log.end();
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        phoneBook.writeSnapshot(temporary);
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        log.truncate(snapshotStart);
+    }
+
+    @Override
+    public void close() throws IOException {
+        phoneBook.removeListener(log);
+        log.close();
+    }
+}
@@ -0,0 +1,99 @@
+package guru.springframework;
+
+// Hand-written recognizer for the two accepted phone number formats:
+//   \+?\(?(\w{2,}|\d)\)?((-|\s)\w{2,})*
+//   \+?(\w{2,}|\d)(-|\s)\(?\w{2,}\)?((-|\s)\w{2,})*
+// Each group is delimited by characters that cannot belong to the next one, so a single
+// left-to-right pass decides the match without backtracking and without allocating.
+public final class PhoneNumberValidator {
+
+    private PhoneNumberValidator() {
+    }
+
+    public static boolean isValid(CharSequence number) {
+        int start = number.length() > 0 && number.charAt(0) == '+' ? 1 : 0;
+        return matchesFirstFormat(number, start) || matchesSecondFormat(number, start);
+    }
+
+    // \(?(\w{2,}|\d)\)? followed by the tail
+    private static boolean matchesFirstFormat(CharSequence number, int position) {
+        if (position < number.length() && number.charAt(position) == '(') {
+            position++;
+        }
+        int end = wordEnd(number, position);
+        if (!isFirstGroup(number, position, end)) {
+            return false;
+        }
+        position = end;
+        if (position < number.length() && number.charAt(position) == ')') {
+            position++;
+        }
+        return matchesTail(number, position);
+    }
+
+    // (\w{2,}|\d)(-|\s)\(?\w{2,}\)? followed by the tail
+    private static boolean matchesSecondFormat(CharSequence number, int position) {
+        int end = wordEnd(number, position);
+        if (!isFirstGroup(number, position, end)) {
+            return false;
+        }
+        position = end;
+        if (position >= number.length() || !isSeparator(number.charAt(position))) {
+            return false;
+        }
+        position++;
+        if (position < number.length() && number.charAt(position) == '(') {
+            position++;
+        }
+        end = wordEnd(number, position);
+        if (end - position < 2) {
+            return false;
+        }
+        position = end;
+        if (position < number.length() && number.charAt(position) == ')') {
+            position++;
+        }
+        return matchesTail(number, position);
+    }
+
+    // ((-|\s)\w{2,})* up to the end of the input
+    private static boolean matchesTail(CharSequence number, int position) {
+        while (position < number.length()) {
+            if (!isSeparator(number.charAt(position))) {
+                return false;
+            }
+            int end = wordEnd(number, position + 1);
+            if (end - position - 1 < 2) {
+                return false;
+            }
+            position = end;
+        }
+        return true;
+    }
+
+    // \w{2,}|\d
+    private static boolean isFirstGroup(CharSequence number, int start, int end) {
+        int length = end - start;
+        return length >= 2 || (length == 1 && isDigit(number.charAt(start)));
+    }
+
+    private static int wordEnd(CharSequence number, int position) {
+        while (position < number.length() && isWordChar(number.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // - or one of the characters matched by \s
+    private static boolean isSeparator(char c) {
+        return c == '-' || c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
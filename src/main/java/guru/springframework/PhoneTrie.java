@@ -0,0 +1,163 @@
+package guru.springframework;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+// Digit trie over phone numbers; formatting characters are ignored so "+0 (123) 456" and "0123456" are the same key.
+// The validator accepts letters, which are keyed by their telephone keypad digit, so "1-800-FLOWERS" is found as
+// 18003569377 and "1-800-356-9377" is the same key.
+class PhoneTrie implements Serializable {
+    // Keypad digit of each letter from a to z
+    private static final String KEYPAD = "22233344455566677778889999";
+
+    private final Node root = new Node();
+
+    void add(long id, String phoneNumber) {
+        if (phoneNumber == null || !PhoneNumberValidator.isValid(phoneNumber)) {
+            return; // "[no number]" and other values that are not phone numbers are not indexed
+        }
+        String digits = digitsOf(phoneNumber);
+        if (digits.isEmpty()) {
+            return;
+        }
+        Node node = root;
+        for (int i = 0; i < digits.length(); i++) {
+            node = node.childOrCreate(digits.charAt(i) - '0');
+        }
+        if (node.ids == null) {
+            node.ids = new HashSet<>();
+        }
+        node.ids.add(id);
+    }
+
+    void remove(long id, String phoneNumber) {
+        if (phoneNumber == null || !PhoneNumberValidator.isValid(phoneNumber)) {
+            return;
+        }
+        String digits = digitsOf(phoneNumber);
+        if (digits.isEmpty()) {
+            return;
+        }
+        Node[] path = new Node[digits.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < digits.length(); i++) {
+            path[i + 1] = path[i].child(digits.charAt(i) - '0');
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        Node node = path[digits.length()];
+        if (node.ids == null || !node.ids.remove(id)) {
+            return;
+        }
+        if (node.ids.isEmpty()) {
+            node.ids = null;
+        }
+        // Prune the branch that no longer leads to any number
+        for (int i = digits.length(); i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].children[digits.charAt(i - 1) - '0'] = null;
+        }
+    }
+
+    // Ids of contacts whose number has exactly these digits
+    SortedSet<Long> find(String phoneNumber) {
+        SortedSet<Long> ids = new TreeSet<>();
+        Node node = lookup(digitsOf(phoneNumber));
+        if (node != null && node.ids != null) {
+            ids.addAll(node.ids);
+        }
+        return ids;
+    }
+
+    // Ids of contacts whose number starts with these digits; an empty prefix matches every number, while a prefix of
+    // formatting characters only, such as "+-", matches none
+    SortedSet<Long> findByPrefix(String prefix) {
+        SortedSet<Long> ids = new TreeSet<>();
+        String digits = digitsOf(prefix);
+        Node start = digits.isEmpty() && prefix != null && !prefix.isEmpty() ? null : lookup(digits);
+        if (start == null) {
+            return ids;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(start);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (node.ids != null) {
+                ids.addAll(node.ids);
+            }
+            if (node.children != null) {
+                for (Node child : node.children) {
+                    if (child != null) {
+                        pending.push(child);
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private Node lookup(String digits) {
+        Node node = root;
+        for (int i = 0; i < digits.length() && node != null; i++) {
+            node = node.child(digits.charAt(i) - '0');
+        }
+        return node;
+    }
+
+    // Digits of the number with letters replaced by their keypad digit, dropping everything else
+    static String digitsOf(String phoneNumber) {
+        if (phoneNumber == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c >= 'a' && c <= 'z') {
+                digits.append(KEYPAD.charAt(c - 'a'));
+            } else if (c >= 'A' && c <= 'Z') {
+                digits.append(KEYPAD.charAt(c - 'A'));
+            }
+        }
+        return digits.toString();
+    }
+
+    private static class Node implements Serializable {
+        private Node[] children;
+        private Set<Long> ids;
+
+        Node child(int digit) {
+            return children == null ? null : children[digit];
+        }
+
+        Node childOrCreate(int digit) {
+            if (children == null) {
+                children = new Node[10];
+            }
+            if (children[digit] == null) {
+                children[digit] = new Node();
+            }
+            return children[digit];
+        }
+
+        boolean isEmpty() {
+            if (ids != null) {
+                return false;
+            }
+            if (children != null) {
+                for (Node child : children) {
+                    if (child != null) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package guru.springframework;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Bounded least recently used caches of compiled query patterns and of search results. A result is kept with the
+// version the book had when it was computed and is only returned while the book is still at that version, so every
+// change to the book retires all cached results at once without working out which queries it affects.
+class SearchCache {
+    // Larger results are recomputed rather than pinning a big part of the book in the cache
+    static final int MAX_CACHED_RESULTS = 10_000;
+
+    private final Map<String, Pattern> patterns;
+    private final Map<String, CachedResult> results;
+    private boolean enabled = true;
+    private long hits;
+    private long misses;
+    private long patternHits;
+    private long patternMisses;
+
+    SearchCache(int capacity) {
+        this.patterns = lruMap(capacity);
+        this.results = lruMap(capacity);
+    }
+
+    private static <V> Map<String, V> lruMap(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            patterns.clear();
+            results.clear();
+        }
+    }
+
+    // The query compiled case-insensitively
+    synchronized Pattern pattern(String query) {
+        if (!enabled) {
+            return Pattern.compile(query, Pattern.CASE_INSENSITIVE);
+        }
+        Pattern pattern = patterns.get(query);
+        if (pattern != null) {
+            patternHits++;
+            return pattern;
+        }
+        patternMisses++;
+        pattern = Pattern.compile(query, Pattern.CASE_INSENSITIVE);
+        patterns.put(query, pattern);
+        return pattern;
+    }
+
+    // Results stored for the query at this version, or null
+    synchronized List<AbstractContact> results(String query, long version) {
+        if (!enabled) {
+            return null;
+        }
+        CachedResult cached = results.get(query);
+        if (cached != null && cached.version == version) {
+            hits++;
+            return cached.contacts;
+        }
+        if (cached != null) {
+            results.remove(query);
+        }
+        misses++;
+        return null;
+    }
+
+    synchronized void put(String query, long version, List<AbstractContact> contacts) {
+        if (enabled && contacts.size() <= MAX_CACHED_RESULTS) {
+            results.put(query, new CachedResult(version, List.copyOf(contacts)));
+        }
+    }
+
+    synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, patternHits, patternMisses, results.size(), patterns.size());
+    }
+
+    private record CachedResult(long version, List<AbstractContact> contacts) {
+    }
+}
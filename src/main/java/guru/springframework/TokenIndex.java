@@ -0,0 +1,268 @@
+package guru.springframework;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Inverted index from lower-cased whitespace-separated tokens to the ids of the contacts containing them
+class TokenIndex implements Serializable {
+    private static final String REGEX_META_CHARS = "\\^$.|?*+()[]{}";
+    static final int GRAM_LENGTH = 3;
+
+    // Ids kept sorted so the postings of several tokens can be merged lazily in id order
+    private final NavigableMap<String, SortedSet<Long>> postings = new TreeMap<>();
+    // Tokens by the three-character pieces they contain, tokens shorter than that under themselves, so a fragment is
+    // only checked against the tokens sharing its rarest piece
+    private final Map<String, Set<String>> tokensByGram = new HashMap<>();
+
+    void add(long id, String text) {
+        for (String token : tokenize(text)) {
+            postings.computeIfAbsent(token, this::addGrams).add(id);
+        }
+    }
+
+    void remove(long id, String text) {
+        for (String token : tokenize(text)) {
+            removePosting(token, id);
+        }
+    }
+
+    // Drops the tokens of the old field value that no longer occur anywhere in the contact and adds the new ones
+    void update(long id, String oldValue, String newValue, String currentText) {
+        Set<String> remaining = tokenize(currentText);
+        for (String token : tokenize(oldValue)) {
+            if (!remaining.contains(token)) {
+                removePosting(token, id);
+            }
+        }
+        add(id, newValue);
+    }
+
+    // Ids of contacts having a token that contains the fragment, in ascending id order. The postings of the
+    // matching tokens are merged as the ids are taken, so a caller that stops early skips the rest; the index must
+    // not change until the caller is done.
+    Iterator<Long> containing(String fragment) {
+        List<String> tokens = tokensContaining(fragment);
+        List<SortedSet<Long>> matching = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            matching.add(postings.get(token));
+        }
+        return new PostingMerge(matching);
+    }
+
+    // A fragment of three or more characters is confirmed against the tokens of its rarest piece. A shorter one
+    // still scans, but the distinct pieces rather than the tokens, and those are bounded by the alphabet.
+    List<String> tokensContaining(String fragment) {
+        if (fragment.isEmpty()) {
+            return new ArrayList<>(postings.keySet());
+        }
+        List<String> tokens = new ArrayList<>();
+        if (fragment.length() < GRAM_LENGTH) {
+            Set<String> seen = new HashSet<>();
+            for (Map.Entry<String, Set<String>> entry : tokensByGram.entrySet()) {
+                if (entry.getKey().contains(fragment)) {
+                    for (String token : entry.getValue()) {
+                        if (seen.add(token)) {
+                            tokens.add(token);
+                        }
+                    }
+                }
+            }
+            return tokens;
+        }
+        Set<String> rarest = null;
+        for (int i = 0; i + GRAM_LENGTH <= fragment.length(); i++) {
+            Set<String> candidates = tokensByGram.get(fragment.substring(i, i + GRAM_LENGTH));
+            if (candidates == null) {
+                return tokens;
+            }
+            if (rarest == null || candidates.size() < rarest.size()) {
+                rarest = candidates;
+            }
+        }
+        for (String token : rarest) {
+            if (token.contains(fragment)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Ids of contacts having a token that starts with the prefix, in ascending id order
+    SortedSet<Long> withPrefix(String prefix) {
+        SortedSet<Long> ids = new TreeSet<>();
+        for (Set<Long> posting : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            ids.addAll(posting);
+        }
+        return ids;
+    }
+
+    int tokenCount() {
+        return postings.size();
+    }
+
+    private void removePosting(String token, long id) {
+        Set<Long> posting = postings.get(token);
+        if (posting != null) {
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(token);
+                removeGrams(token);
+            }
+        }
+    }
+
+    private SortedSet<Long> addGrams(String token) {
+        for (String gram : grams(token)) {
+            tokensByGram.computeIfAbsent(gram, key -> new HashSet<>()).add(token);
+        }
+        return new TreeSet<>();
+    }
+
+    private void removeGrams(String token) {
+        for (String gram : grams(token)) {
+            Set<String> tokens = tokensByGram.get(gram);
+            if (tokens != null && tokens.remove(token) && tokens.isEmpty()) {
+                tokensByGram.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String token) {
+        Set<String> grams = new HashSet<>();
+        if (token.length() < GRAM_LENGTH) {
+            grams.add(token);
+            return grams;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= token.length(); i++) {
+            grams.add(token.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new HashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean separator = i == normalized.length() || Character.isWhitespace(normalized.charAt(i));
+            if (separator && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            } else if (!separator && start < 0) {
+                start = i;
+            }
+        }
+        return tokens;
+    }
+
+    // Lower-cases ASCII letters only, which is what Pattern.CASE_INSENSITIVE folds by default
+    static String normalize(String text) {
+        StringBuilder builder = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                if (builder == null) {
+                    builder = new StringBuilder(text);
+                }
+                builder.setCharAt(i, (char) (c + ('a' - 'A')));
+            }
+        }
+        return builder == null ? text : builder.toString();
+    }
+
+    // A query can be answered from the index when it is plain ASCII text without regex syntax
+    static boolean isLiteral(String query) {
+        if (query.isBlank()) {
+            return false;
+        }
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c > 127 || REGEX_META_CHARS.indexOf(c) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The longest whitespace-free piece of the query, used to pick the candidate contacts
+    static String longestPiece(String query) {
+        String longest = "";
+        for (String piece : tokenize(query)) {
+            if (piece.length() > longest.length()) {
+                longest = piece;
+            }
+        }
+        return longest;
+    }
+
+    // Ascending ids of several sorted postings without duplicates, taking the smallest head each time
+    private static final class PostingMerge implements Iterator<Long> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparingLong(Head::id));
+
+        PostingMerge(List<SortedSet<Long>> postings) {
+            for (SortedSet<Long> posting : postings) {
+                Head head = new Head(posting.iterator());
+                if (head.advance()) {
+                    heads.add(head);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Long next() {
+            if (heads.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            long id = heads.peek().id;
+            while (!heads.isEmpty() && heads.peek().id == id) {
+                Head head = heads.poll();
+                if (head.advance()) {
+                    heads.add(head);
+                }
+            }
+            return id;
+        }
+    }
+
+    private static final class Head {
+        private final Iterator<Long> ids;
+        private long id;
+
+        Head(Iterator<Long> ids) {
+            this.ids = ids;
+        }
+
+        long id() {
+            return id;
+        }
+
+        boolean advance() {
+            if (!ids.hasNext()) {
+                return false;
+            }
+            id = ids.next();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package guru.springframework;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Typo tolerant lookup of name words. Every distinct word is split into trigrams of "$word$"; a word within edit
+// distance k of the query shares all but at most 3k of the query's trigrams, so only words passing that count are
+// compared with the query, and the comparison gives up as soon as the distance exceeds k. Words differing in length
+// by more than k are never compared. A query too short for that count to rule anything out also needs the words
+// sharing none of its trigrams, and those are taken from the buckets of words within k of its length.
+class TrigramIndex implements Serializable {
+    private final Map<String, Set<Long>> idsByWord = new HashMap<>();
+    private final Map<String, Set<String>> wordsByTrigram = new HashMap<>();
+    private final Map<Integer, Set<String>> wordsByLength = new HashMap<>();
+
+    void add(long id, String text) {
+        for (String word : words(text)) {
+            idsByWord.computeIfAbsent(word, key -> {
+                for (String trigram : trigrams(key)) {
+                    wordsByTrigram.computeIfAbsent(trigram, ignored -> new HashSet<>()).add(key);
+                }
+                wordsByLength.computeIfAbsent(key.length(), ignored -> new HashSet<>()).add(key);
+                return new HashSet<>();
+            }).add(id);
+        }
+    }
+
+    void remove(long id, String text) {
+        for (String word : words(text)) {
+            removeWord(word, id);
+        }
+    }
+
+    // Drops the words of the old value that no longer occur in the contact's names and adds the new ones
+    void update(long id, String oldValue, String newValue, String currentText) {
+        Set<String> remaining = words(currentText);
+        for (String word : words(oldValue)) {
+            if (!remaining.contains(word)) {
+                removeWord(word, id);
+            }
+        }
+        add(id, newValue);
+    }
+
+    // Distance from the query word to every indexed word within maxDistance of it, with the ids having that word
+    Map<String, Integer> similarWords(String queryWord, int maxDistance) {
+        String[] queryTrigrams = trigrams(queryWord).toArray(new String[0]);
+        int required = queryTrigrams.length - 3 * maxDistance;
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            for (String word : wordsByTrigram.getOrDefault(trigram, Set.of())) {
+                if (Math.abs(word.length() - queryWord.length()) <= maxDistance) {
+                    shared.merge(word, 1, Integer::sum);
+                }
+            }
+        }
+        List<String> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            if (entry.getValue() >= required) {
+                candidates.add(entry.getKey());
+            }
+        }
+        if (required <= 0) {
+            for (int length = Math.max(queryWord.length() - maxDistance, 1); length <= queryWord.length() + maxDistance; length++) {
+                for (String word : wordsByLength.getOrDefault(length, Set.of())) {
+                    if (!shared.containsKey(word)) {
+                        candidates.add(word);
+                    }
+                }
+            }
+        }
+        Map<String, Integer> distances = new HashMap<>();
+        for (String word : candidates) {
+            int distance = distance(queryWord, word, maxDistance);
+            if (distance <= maxDistance) {
+                distances.put(word, distance);
+            }
+        }
+        return distances;
+    }
+
+    Set<Long> idsOf(String word) {
+        return idsByWord.getOrDefault(word, Set.of());
+    }
+
+    private void removeWord(String word, long id) {
+        Set<Long> ids = idsByWord.get(word);
+        if (ids == null || !ids.remove(id) || !ids.isEmpty()) {
+            return;
+        }
+        idsByWord.remove(word);
+        Set<String> sameLength = wordsByLength.get(word.length());
+        sameLength.remove(word);
+        if (sameLength.isEmpty()) {
+            wordsByLength.remove(word.length());
+        }
+        for (String trigram : trigrams(word)) {
+            Set<String> words = wordsByTrigram.get(trigram);
+            words.remove(word);
+            if (words.isEmpty()) {
+                wordsByTrigram.remove(trigram);
+            }
+        }
+    }
+
+    static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static Set<String> trigrams(String word) {
+        String padded = "$" + word + "$";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        if (trigrams.isEmpty()) {
+            trigrams.add(padded);
+        }
+        return trigrams;
+    }
+
+    // Levenshtein distance, or maxDistance + 1 as soon as it is known to be larger than maxDistance
+    static int distance(String a, String b, int maxDistance) {
+        if (Math.abs(a.length() - b.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], maxDistance + 1);
+    }
+}
@@ -0,0 +1,56 @@
+package guru.springframework;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Shares one String instance between equal field values, so values repeated across contacts such as
+// "[no data]", common surnames or addresses are kept once. The pool is a fixed table indexed by hash code: a
+// value replaces whatever occupied its slot, so frequent values stay while unique ones only pass through, and
+// the pool never costs more than the table itself. Slots are read and written without locking; a lost update
+// only means a missed chance to share.
+public final class ValuePool {
+    private static final int SLOTS = 1 << 16;
+    private static final String[] TABLE = new String[SLOTS];
+    private static final LongAdder DEDUPLICATED = new LongAdder();
+    private static final LongAdder SAVED_BYTES = new LongAdder();
+    private static volatile boolean enabled = true;
+
+    private ValuePool() {
+    }
+
+    static String intern(String value) {
+        if (value == null || !enabled) {
+            return value;
+        }
+        int hash = value.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+        String pooled = TABLE[slot];
+        if (value.equals(pooled)) {
+            if (pooled != value) {
+                DEDUPLICATED.increment();
+                SAVED_BYTES.add(sizeOf(value));
+            }
+            return pooled;
+        }
+        TABLE[slot] = value;
+        return value;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        ValuePool.enabled = enabled;
+    }
+
+    // Number of values replaced by an equal pooled instance
+    public static long deduplicated() {
+        return DEDUPLICATED.sum();
+    }
+
+    // Heap of the replaced instances, which become garbage unless the caller keeps them
+    public static long savedBytes() {
+        return SAVED_BYTES.sum();
+    }
+
+    // String header plus its array, assuming compressed references and Latin-1 content
+    private static long sizeOf(String value) {
+        return 24 + ((16 + value.length() + 7) & ~7);
+    }
+}
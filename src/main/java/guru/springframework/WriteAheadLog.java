@@ -0,0 +1,305 @@
+package guru.springframework;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Append-only log of PhoneBook changes. Every record is framed as [payload length][CRC32][payload] so a torn
+// write at the end of the file is detected on replay. Appends only copy the record into a buffer; the buffer
+// is written and forced to disk by a background group commit every commit interval, or on sync(). A failed
+// background commit keeps the unwritten records for the next one and is reported by the next append, sync or close.
+class WriteAheadLog implements PhoneBookListener, Closeable {
+    private static final byte ADD = 1;
+    private static final byte UPDATE = 2;
+    private static final byte REMOVE = 3;
+    private static final int HEADER_SIZE = 8;
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ScheduledExecutorService committer;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer pending = ByteBuffer.allocate(2 * FLUSH_THRESHOLD);
+    private IOException failure;
+    private long written; // Bytes of the file, the records in pending come after them
+
+    WriteAheadLog(Path file, long commitIntervalMillis) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE),
+                commitIntervalMillis);
+    }
+
+    WriteAheadLog(FileChannel channel, long commitIntervalMillis) throws IOException {
+        this.channel = channel;
+        this.written = channel.size();
+        this.channel.position(written);
+        this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "phonebook-wal-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.committer.scheduleWithFixedDelay(this::commitQuietly, commitIntervalMillis, commitIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void contactAdded(AbstractContact contact) {
+        append(encodeAdd(contact));
+    }
+
+    @Override
+    public void contactUpdated(AbstractContact contact, String field, String oldValue, String newValue) {
+        byte[] fieldBytes = utf8(field);
+        byte[] valueBytes = utf8(newValue);
+        ByteBuffer record = ByteBuffer.allocate(1 + 8 + 8 + 4 + fieldBytes.length + 4 + valueBytes.length);
+        record.put(UPDATE).putLong(contact.getId()).putLong(contact.lastEditMillis());
+        putBytes(record, fieldBytes);
+        putBytes(record, valueBytes);
+        append(record.array());
+    }
+
+    @Override
+    public void contactRemoved(AbstractContact contact) {
+        append(ByteBuffer.allocate(1 + 8).put(REMOVE).putLong(contact.getId()).array());
+    }
+
+    // Writes everything appended so far and forces it to disk
+    void sync() throws IOException {
+        IOException failed = takeFailure();
+        if (failed != null) {
+            throw failed;
+        }
+        commit();
+    }
+
+    // Position after the last record appended so far, to pass to truncate
+    synchronized long end() {
+        return written + pending.position();
+    }
+
+    // Drops the records before the position once a snapshot has captured them. Records appended while the
+    // snapshot was written are kept, whether or not it caught them, since replaying them again is harmless.
+    synchronized void truncate(long end) throws IOException {
+        write();
+        ByteBuffer kept = ByteBuffer.allocate((int) (written - end));
+        while (kept.hasRemaining()) {
+            if (channel.read(kept, end + kept.position()) < 0) {
+                throw new EOFException("Change log is shorter than its appended records");
+            }
+        }
+        kept.flip();
+        channel.truncate(0);
+        channel.position(0);
+        written = 0;
+        while (kept.hasRemaining()) {
+            written += channel.write(kept);
+        }
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        committer.shutdown();
+        try {
+            committer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private synchronized void append(byte[] payload) {
+        if (pending.remaining() < HEADER_SIZE + payload.length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + HEADER_SIZE + payload.length));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        crc.reset();
+        crc.update(payload);
+        pending.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        IOException failed = takeFailure();
+        if (failed != null) {
+            throw new UncheckedIOException(failed);
+        }
+        if (pending.position() >= FLUSH_THRESHOLD) {
+            try {
+                write();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Bytes the channel did not take stay at the start of the buffer, after a failure too, so they are written
+    // by the next attempt right after the ones that made it
+    private synchronized void write() throws IOException {
+        pending.flip();
+        try {
+            while (pending.hasRemaining()) {
+                written += channel.write(pending);
+            }
+        } finally {
+            pending.compact();
+        }
+    }
+
+    private void commit() throws IOException {
+        write();
+        channel.force(false);
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException e) {
+            recordFailure(e);
+        }
+    }
+
+    // Only the first failure is kept until it is reported, later ones usually repeat it
+    private synchronized void recordFailure(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private synchronized IOException takeFailure() {
+        IOException failed = failure;
+        failure = null;
+        return failed == null ? null : new IOException("Background commit of the change log failed", failed);
+    }
+
+    static byte[] encodeAdd(AbstractContact contact) {
+        String[] fields = contact.getEditableFields();
+        byte[] type = utf8(contact.getType());
+        byte[][] names = new byte[fields.length][];
+        byte[][] values = new byte[fields.length][];
+        int size = 1 + 8 + 4 + type.length + 8 + 8 + 4;
+        for (int i = 0; i < fields.length; i++) {
+            names[i] = utf8(fields[i]);
+            values[i] = utf8(contact.getFieldValue(fields[i]));
+            size += 4 + names[i].length + 4 + values[i].length;
+        }
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.put(ADD).putLong(contact.getId());
+        putBytes(record, type);
+        record.putLong(contact.createdMillis()).putLong(contact.lastEditMillis());
+        record.putInt(fields.length);
+        for (int i = 0; i < fields.length; i++) {
+            putBytes(record, names[i]);
+            putBytes(record, values[i]);
+        }
+        return record.array();
+    }
+
+    // Applies every intact record of the log to the phone book and returns the length of the intact part
+    static long replay(Path file, PhoneBook phoneBook) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long validLength = 0;
+        CRC32 checksum = new CRC32();
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+             DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(in), FLUSH_THRESHOLD))) {
+            while (true) {
+                byte[] payload;
+                int expectedCrc;
+                try {
+                    int length = input.readInt();
+                    expectedCrc = input.readInt();
+                    if (length <= 0 || length > in.size()) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    input.readFully(payload);
+                } catch (EOFException e) {
+                    break; // Torn write at the end of the log
+                }
+                checksum.reset();
+                checksum.update(payload);
+                if ((int) checksum.getValue() != expectedCrc) {
+                    break;
+                }
+                apply(ByteBuffer.wrap(payload), phoneBook);
+                validLength += HEADER_SIZE + payload.length;
+            }
+        }
+        return validLength;
+    }
+
+    // Replay is idempotent, so records already reflected in a snapshot can safely be applied again
+    private static void apply(ByteBuffer record, PhoneBook phoneBook) {
+        byte operation = record.get();
+        long id = record.getLong();
+        AbstractContact existing = phoneBook.getContactById(id);
+        switch (operation) {
+            case ADD: {
+                AbstractContact contact = AbstractContact.newContact(getString(record));
+                long created = record.getLong();
+                long lastEdit = record.getLong();
+                int fieldCount = record.getInt();
+                for (int i = 0; i < fieldCount; i++) {
+                    contact.restoreField(getString(record), getString(record));
+                }
+                contact.restoreTimes(created, lastEdit);
+                if (existing == null) {
+                    phoneBook.restoreContact(contact, id);
+                }
+                break;
+            }
+            case UPDATE: {
+                long lastEdit = record.getLong();
+                String field = getString(record);
+                String value = getString(record);
+                if (existing != null) {
+                    String oldValue = existing.getFieldValue(field);
+                    existing.restoreField(field, value);
+                    existing.restoreTimes(existing.createdMillis(), lastEdit);
+                    if (!Objects.equals(oldValue, existing.getFieldValue(field))) {
+                        phoneBook.contactUpdated(existing, field, oldValue, existing.getFieldValue(field));
+                    }
+                }
+                break;
+            }
+            case REMOVE:
+                if (existing != null) {
+                    phoneBook.removeContact(existing);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown log record type " + operation);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,200 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeEventBusTest {
+
+    private ChangeEventBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new ChangeEventBus(8, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.close();
+    }
+
+    private static List<ContactEvent> take(BlockingQueue<ContactEvent> events, int count) throws InterruptedException {
+        List<ContactEvent> taken = new ArrayList<>();
+        while (taken.size() < count) {
+            ContactEvent event = events.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event, "Timed out after " + taken.size() + " events");
+            taken.add(event);
+        }
+        return taken;
+    }
+
+    @Test
+    @DisplayName("Should publish typed events for adds, edits and removals in order")
+    void testPublishesChanges() throws InterruptedException {
+        // given
+        PhoneBook phoneBook = new PhoneBook();
+        phoneBook.addListener(bus);
+        BlockingQueue<ContactEvent> events = new LinkedBlockingQueue<>();
+        bus.subscribe(events::addAll);
+        Person person = new Person("John", "Doe", "123 456 789");
+
+        // when
+        phoneBook.addContact(person);
+        person.updateField("surname", "Smith");
+        phoneBook.removeContact(person);
+
+        // then
+        List<ContactEvent> received = take(events, 3);
+        assertEquals(new ContactEvent.Added(0, person.getId(), "person", Map.of("name", "John", "surname", "Doe",
+                "birthDate", "[no data]", "gender", "[no data]", "phoneNumber", "123 456 789")), received.get(0));
+        assertEquals(List.of("name", "surname", "birthDate", "gender", "phoneNumber"),
+                List.copyOf(((ContactEvent.Added) received.get(0)).fields().keySet()));
+        assertEquals(new ContactEvent.FieldUpdated(1, person.getId(), "surname", "Doe", "Smith"), received.get(1));
+        assertEquals(new ContactEvent.Removed(2, person.getId()), received.get(2));
+        assertEquals(3, bus.published());
+    }
+
+    @Test
+    @DisplayName("Should hold changes back for a slow subscriber and deliver everything in batches")
+    void testBackPressureAndBatches() throws InterruptedException {
+        // given
+        BlockingQueue<ContactEvent> events = new LinkedBlockingQueue<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        ChangeEventBus.Subscription subscription = bus.subscribe(batch -> {
+            batchSizes.add(batch.size());
+            events.addAll(batch);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Person person = new Person("John", "Doe", "123 456 789");
+
+        // when
+        for (int i = 0; i < 200; i++) {
+            bus.contactUpdated(person, "name", "Name" + i, "Name" + (i + 1));
+        }
+
+        // then
+        List<ContactEvent> received = take(events, 200);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, received.get(i).sequence());
+        }
+        assertTrue(bus.backPressureWaits() > 0);
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 4));
+        assertTrue(batchSizes.stream().anyMatch(size -> size > 1));
+        subscription.close();
+        assertEquals(0, subscription.lag());
+    }
+
+    @Test
+    @DisplayName("Should keep delivering after a subscriber fails and stop once closed")
+    void testFailuresAndClose() throws InterruptedException {
+        // given
+        BlockingQueue<ContactEvent> events = new LinkedBlockingQueue<>();
+        ChangeEventBus.Subscription subscription = bus.subscribe(batch -> {
+            events.addAll(batch);
+            throw new IllegalStateException("Subscriber failure");
+        });
+        Person person = new Person("John", "Doe", "123 456 789");
+
+        // when
+        bus.contactRemoved(person);
+        take(events, 1);
+        bus.contactRemoved(person);
+        take(events, 1);
+        subscription.close();
+        bus.contactRemoved(person);
+
+        // then
+        assertEquals(2, subscription.failures());
+        assertNull(events.poll(50, TimeUnit.MILLISECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new ChangeEventBus(100, 10));
+    }
+
+    @Test
+    @DisplayName("Should remove a subscriber that stays a whole ring behind instead of blocking changes")
+    void testRemovesStuckSubscriber() throws InterruptedException {
+        // given
+        ChangeEventBus shortWaitBus = new ChangeEventBus(8, 4, 20);
+        CountDownLatch release = new CountDownLatch(1);
+        ChangeEventBus.Subscription subscription = shortWaitBus.subscribe(batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Person person = new Person("John", "Doe", "123 456 789");
+
+        // when
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < 20; i++) {
+                shortWaitBus.contactRemoved(person);
+            }
+        });
+        release.countDown();
+
+        // then
+        assertTrue(subscription.removed());
+        assertEquals(1, shortWaitBus.removedSubscriptions());
+        assertEquals(20, shortWaitBus.published());
+        shortWaitBus.close();
+    }
+
+    @Test
+    @DisplayName("Should remove a subscriber whose thread died from an error")
+    void testRemovesSubscriberKilledByError() {
+        // given
+        ChangeEventBus shortWaitBus = new ChangeEventBus(8, 4, 20);
+        ChangeEventBus.Subscription subscription = shortWaitBus.subscribe(batch -> {
+            throw new Error("Subscriber died");
+        });
+        Person person = new Person("John", "Doe", "123 456 789");
+
+        // when
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < 20; i++) {
+                shortWaitBus.contactRemoved(person);
+            }
+        });
+
+        // then
+        assertTrue(subscription.removed());
+        assertEquals(0, subscription.failures());
+        shortWaitBus.close();
+    }
+
+    @Test
+    @DisplayName("Should not deadlock when a subscriber reads the book it listens to")
+    void testSubscriberReadingTheBook() {
+        // given
+        ConcurrentPhoneBook phoneBook = new ConcurrentPhoneBook();
+        phoneBook.addListener(bus);
+        bus.subscribe(batch -> phoneBook.search("John"));
+
+        // when
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < 100; i++) {
+                phoneBook.addContact(new Person("John", "Doe" + i, "123 456 789"));
+            }
+        });
+
+        // then
+        assertEquals(100, phoneBook.count());
+        assertEquals(100, bus.published());
+    }
+}
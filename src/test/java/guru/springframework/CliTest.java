@@ -0,0 +1,139 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CliTest {
+
+    @TempDir
+    Path directory;
+
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+        Files.writeString(directory.resolve("contacts.csv"), """
+                type,name,surname,phoneNumber,organizationName,address
+                person,John,Smith,123 456 789,,
+                person,Jane,Smith,987 654 321,,
+                organization,,,555 000 111,Pizza Shop,Wall St. 1
+                person,Bad,Number,(12)(34),,
+                """);
+    }
+
+    private int run(String... args) {
+        out.reset();
+        err.reset();
+        return Cli.run(args, new PrintStream(out), new PrintStream(err));
+    }
+
+    private String output() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should import into the data directory and answer later commands from it")
+    void testImportThenQuery() {
+        // given
+        String data = directory.resolve("data").toString();
+
+        // when
+        int imported = run("--data", data, "--format", "json", "import", directory.resolve("contacts.csv").toString());
+        String importOutput = output();
+        int counted = run("--data", data, "count", "smith");
+        String countOutput = output();
+        int searched = run("--data", data, "search", "smith", "--offset", "1", "--limit", "5");
+        String searchOutput = output();
+        int exported = run("--data", data, "--format", "json", "export");
+        String exportOutput = output();
+
+        // then
+        assertEquals(0, imported);
+        assertTrue(importOutput.contains("\"imported\":3"));
+        assertTrue(importOutput.contains("\"rejected\":1"));
+        assertEquals(0, counted);
+        assertEquals("2", countOutput.trim());
+        assertEquals(0, searched);
+        assertEquals("2. Jane Smith [no data] [no data] 987 654 321", searchOutput.trim());
+        assertEquals(0, exported);
+        String[] lines = exportOutput.trim().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[2].startsWith("{\"id\":3,\"type\":\"organization\",\"organizationName\":\"Pizza Shop\""));
+    }
+
+    @Test
+    @DisplayName("Should export to a file that imports back")
+    void testExportToFile() {
+        // given
+        String data = directory.resolve("data").toString();
+        String exported = directory.resolve("export.json.gz").toString();
+        run("--data", data, "import", directory.resolve("contacts.csv").toString());
+
+        // when
+        int status = run("--data", data, "export", "--output", exported);
+        String exportOutput = output();
+        run("--format", "json", "import", exported);
+
+        // then
+        assertEquals(0, status);
+        assertTrue(exportOutput.startsWith(exported + ": Exported 3 records"));
+        assertTrue(output().contains("\"imported\":3,\"rejected\":0"));
+    }
+
+    @Test
+    @DisplayName("Should report search latencies for every query")
+    void testBench() {
+        // when
+        int status = run("--format", "json", "bench", "smith", "^j", "--iterations", "20", "--warmup", "5", "--no-cache");
+
+        // then
+        assertEquals(0, status);
+        String[] lines = output().trim().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"query\":\"smith\",\"results\":0,\"iterations\":20,\"p50Micros\":"));
+        assertTrue(lines[1].contains("\"opsPerSecond\":"));
+    }
+
+    @Test
+    @DisplayName("Should print the usage and fail for unknown commands or options")
+    void testInvalidArguments() {
+        // when
+        int unknownCommand = run("frobnicate");
+        String unknownCommandError = err.toString(StandardCharsets.UTF_8);
+        int badFormat = run("--format", "xml", "count");
+        int noCommand = run();
+
+        // then
+        assertEquals(2, unknownCommand);
+        assertTrue(unknownCommandError.contains("Usage: phonebook"));
+        assertEquals(2, badFormat);
+        assertEquals(2, noCommand);
+        assertTrue(output().contains("search"));
+        assertEquals(0, run("--help"));
+    }
+
+    @Test
+    @DisplayName("Should fail with a message when an input file is missing")
+    void testMissingFile() {
+        // when
+        int status = run("import", directory.resolve("missing.csv").toString());
+
+        // then
+        assertEquals(1, status);
+        assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("Failed: "));
+    }
+}
@@ -0,0 +1,142 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarPhoneBookTest {
+
+    private ColumnarPhoneBook phoneBook;
+
+    @BeforeEach
+    void setUp() {
+        phoneBook = new ColumnarPhoneBook();
+        phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+        phoneBook.addContact(new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999"));
+        phoneBook.addContact(new Person("Jane", "Doe", "987 654 321"));
+    }
+
+    @Test
+    @DisplayName("Should hand out views with the values and search text of the added contacts")
+    void testViews() {
+        // when
+        AbstractContact person = phoneBook.getContact(0);
+        AbstractContact organization = phoneBook.getContact(1);
+
+        // then
+        assertEquals("person", person.getType());
+        assertEquals("John Doe [no data] [no data] 123 456 789", person.getAllFieldsForSearch());
+        assertEquals("Pizza Shop Wall St. 1 +0 (123) 456-789-9999", organization.getAllFieldsForSearch());
+        assertEquals("", organization.getFieldValue("surname"));
+        assertNotNull(person.getCreatedTime());
+        assertNull(phoneBook.getContact(3));
+    }
+
+    @Test
+    @DisplayName("Should write edits through to the columns seen by every view")
+    void testUpdateField() {
+        // given
+        AbstractContact view = phoneBook.getContact(0);
+
+        // when
+        view.updateField("surname", "Smith");
+        view.updateField("phoneNumber", "1 2");
+
+        // then
+        AbstractContact other = phoneBook.getContactById(view.getId());
+        assertEquals("Smith", other.getFieldValue("surname"));
+        assertEquals("[no number]", other.getFieldValue("phoneNumber"));
+        assertEquals("John Smith [no data] [no data] [no number]", view.getAllFieldsForSearch());
+    }
+
+    @Test
+    @DisplayName("Should search and remove like PhoneBook")
+    void testSearchAndRemove() {
+        // when
+        List<AbstractContact> does = phoneBook.search("doe");
+        phoneBook.removeContact(does.get(0));
+
+        // then
+        assertEquals(2, does.size());
+        assertEquals(2, phoneBook.count());
+        assertEquals("Jane", phoneBook.search("^j").get(0).getFieldValue("name"));
+        assertEquals("", does.get(0).getFieldValue("name"));
+        assertEquals(1, phoneBook.search("st\\. \\d").size());
+    }
+
+    @Test
+    @DisplayName("Should store repeated values once")
+    void testBytesPerRecord() {
+        // given
+        for (int i = 0; i < 10_000; i++) {
+            phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+        }
+
+        // when & then
+        assertTrue(phoneBook.bytesPerRecord() < 100); // Includes spare array capacity
+    }
+
+    @Test
+    @DisplayName("Should keep listing order through many removals and drop values no row uses")
+    void testManyRemovals() {
+        // given
+        List<AbstractContact> added = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            phoneBook.addContact(new Person("Name" + i, "Surname" + i, "123"));
+            added.add(phoneBook.getContact(phoneBook.count() - 1));
+        }
+        double bytesBefore = phoneBook.bytesPerRecord() * phoneBook.count();
+
+        // when
+        for (int i = 0; i < 200; i++) {
+            if (i % 4 != 0) {
+                phoneBook.removeContact(added.get(i));
+            }
+        }
+
+        // then
+        assertEquals(53, phoneBook.count());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("Name" + i * 4, phoneBook.getContact(3 + i).getFieldValue("name"));
+        }
+        assertNull(phoneBook.getContactById(added.get(1).getId()));
+        assertEquals("Surname196", phoneBook.getContactById(added.get(196).getId()).getFieldValue("surname"));
+        assertEquals(1, phoneBook.search("name8 ").size());
+        assertTrue(phoneBook.search("name9 ").isEmpty());
+        assertTrue(phoneBook.bytesPerRecord() * phoneBook.count() < bytesBefore);
+    }
+
+    @Test
+    @DisplayName("Should give the same answers as the other stores through ContactBook")
+    void testContactBook() {
+        // given
+        List<ContactBook> books = List.of(new PhoneBook(), new ColumnarPhoneBook(), new OffHeapPhoneBook(1 << 16));
+        List<List<String>> answers = new ArrayList<>();
+
+        // when
+        for (ContactBook book : books) {
+            book.addContact(new Person("John", "Doe", "123 456 789"));
+            book.addContact(new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999"));
+            book.addContact(new Person("Jane", "Doe", "987 654 321"));
+            book.removeContact(book.getContact(0));
+            List<String> answer = new ArrayList<>();
+            for (AbstractContact contact : book.search("doe|shop")) {
+                answer.add(contact.getId() + " " + contact.getAllFieldsForSearch());
+            }
+            answer.add(book.getContactById(3).getFieldValue("name"));
+            answer.add(String.valueOf(book.count()));
+            answers.add(answer);
+        }
+
+        // then
+        assertEquals(List.of("2 Pizza Shop Wall St. 1 +0 (123) 456-789-9999", "3 Jane Doe [no data] [no data] 987 654 321",
+                "Jane", "2"), answers.get(0));
+        assertEquals(answers.get(0), answers.get(1));
+        assertEquals(answers.get(0), answers.get(2));
+    }
+}
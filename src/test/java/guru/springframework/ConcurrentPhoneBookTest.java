@@ -0,0 +1,244 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentPhoneBookTest {
+
+    private static final int THREADS = 8;
+    private static final int CONTACTS_PER_THREAD = 2_000;
+
+    private ConcurrentPhoneBook phoneBook;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        phoneBook = new ConcurrentPhoneBook();
+        executor = Executors.newFixedThreadPool(THREADS * 2);
+    }
+
+    @Test
+    @DisplayName("Should keep every contact and index entry when many threads add at once")
+    void testConcurrentAdds() throws Exception {
+        // given
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+
+        // when
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < CONTACTS_PER_THREAD; i++) {
+                    phoneBook.addContact(new Person("Name" + thread, "Surname" + i, thread + "00 " + (1000 + i)));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+
+        // then
+        assertEquals(THREADS * CONTACTS_PER_THREAD, phoneBook.count());
+        for (int t = 0; t < THREADS; t++) {
+            assertEquals(CONTACTS_PER_THREAD, phoneBook.search("name" + t + " surname").size());
+            assertEquals(CONTACTS_PER_THREAD, phoneBook.findByPhonePrefix(t + "00").size());
+        }
+        long previousId = 0;
+        for (int i = 0; i < phoneBook.count(); i++) {
+            assertTrue(phoneBook.getContact(i).getId() > previousId);
+            previousId = phoneBook.getContact(i).getId();
+        }
+    }
+
+    @Test
+    @DisplayName("Should leave the indexes consistent when threads edit contacts while others read")
+    void testConcurrentEditsAndReads() throws Exception {
+        // given
+        for (int i = 0; i < THREADS * 100; i++) {
+            phoneBook.addContact(new Person("Name", "Surname" + i, "100 " + (1000 + i)));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+
+        // when
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(executor.submit(() -> {
+                start.await();
+                for (int round = 0; round < 200; round++) {
+                    // Each writer owns a slice of the contacts, and all writers also fight over contact 0
+                    AbstractContact own = phoneBook.getContact(thread * 100 + round % 100);
+                    own.updateField("phoneNumber", "2" + thread + " " + (1000 + round));
+                    phoneBook.getContact(0).updateField("name", "Shared" + thread);
+                }
+                return null;
+            }));
+            tasks.add(executor.submit(() -> {
+                start.await();
+                while (running.get()) {
+                    try {
+                        assertEquals(THREADS * 100, phoneBook.count());
+                        assertNotNull(phoneBook.getContactById(1 + thread));
+                        phoneBook.search("surname1");
+                        phoneBook.search("^name");
+                        phoneBook.findByPhonePrefix("2" + thread);
+                    } catch (Throwable e) {
+                        failures.add(e);
+                        return null;
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < tasks.size(); i += 2) {
+            tasks.get(i).get(60, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertTrue(failures.isEmpty(), () -> "Reader failed: " + failures.peek());
+        for (int i = 0; i < phoneBook.count(); i++) {
+            AbstractContact contact = phoneBook.getContact(i);
+            List<AbstractContact> byPhone = phoneBook.findByPhone(contact.getFieldValue("phoneNumber"));
+            assertEquals(List.of(contact), byPhone);
+        }
+        assertEquals(THREADS * 100, phoneBook.findByPhonePrefix("").size());
+        assertEquals(1, phoneBook.searchPrefix(phoneBook.getContact(0).getFieldValue("name")).size());
+        assertEquals(THREADS * 100 - 1, phoneBook.search("name ").size());
+    }
+
+    @Test
+    @DisplayName("Should let threads edit different contacts while a long search holds the read lock")
+    void testEditsDuringLongSearch() throws Exception {
+        // given
+        for (int i = 0; i < THREADS * 10; i++) {
+            phoneBook.addContact(new Person("Name", "Surname" + i, "100 " + (1000 + i)));
+        }
+        CountDownLatch searching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> search = executor.submit(() -> phoneBook.forEachMatch("^name", contact -> {
+            searching.countDown();
+            try {
+                return release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertTrue(searching.await(10, TimeUnit.SECONDS));
+        List<Future<?>> writers = new ArrayList<>();
+
+        // when
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 10; i++) {
+                    AbstractContact contact = phoneBook.getContact(thread * 10 + i);
+                    contact.updateField("surname", "Edited" + thread);
+                    contact.updateField("phoneNumber", "2" + thread + " " + (1000 + i));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(10, TimeUnit.SECONDS);
+        }
+
+        // then
+        assertFalse(search.isDone());
+        release.countDown();
+        search.get(10, TimeUnit.SECONDS);
+        for (int t = 0; t < THREADS; t++) {
+            assertEquals(10, phoneBook.search("edited" + t).size());
+            assertEquals(10, phoneBook.findByPhonePrefix("2" + t).size());
+        }
+        assertTrue(phoneBook.search("surname").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should apply a large batch while other threads edit the same contacts")
+    void testBatchWithConcurrentEdits() throws Exception {
+        // given
+        int contacts = THREADS * 500;
+        for (int i = 0; i < contacts; i++) {
+            phoneBook.addContact(new Person("Name", "Surname" + i, "100 " + (1000 + i)));
+        }
+        List<FieldUpdate> batch = new ArrayList<>();
+        for (int i = 0; i < contacts; i++) {
+            batch.add(new FieldUpdate(i + 1, "phoneNumber", "300 " + (1000 + i)));
+            batch.add(new FieldUpdate(i + 1, "surname", "Batch" + i));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> editors = new ArrayList<>();
+
+        // when
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            editors.add(executor.submit(() -> {
+                start.await();
+                for (int round = 0; round < 200; round++) {
+                    phoneBook.getContact(thread * 500 + round).updateField("name", "Edited" + thread);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        List<FieldUpdate> rejected = phoneBook.applyBatch(batch);
+        for (Future<?> editor : editors) {
+            editor.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertTrue(rejected.isEmpty());
+        assertEquals(contacts, phoneBook.findByPhonePrefix("300").size());
+        assertTrue(phoneBook.findByPhonePrefix("100").isEmpty());
+        for (int i = 0; i < contacts; i += 97) {
+            AbstractContact contact = phoneBook.getContact(i);
+            assertEquals("Batch" + i, contact.getFieldValue("surname"));
+            assertEquals(List.of(contact), phoneBook.search("batch" + i + " "));
+        }
+        assertEquals(THREADS * 200, phoneBook.searchPrefix("edited").size());
+    }
+
+    @Test
+    @DisplayName("Should lock and index edits again after deserialization")
+    void testSerialization() throws Exception {
+        // given
+        ConcurrentPhoneBook phoneBook = new ConcurrentPhoneBook();
+        phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+
+        // when
+        ConcurrentPhoneBook copy = PhoneBookTest.serializedCopy(phoneBook);
+        copy.getContact(0).updateField("surname", "Smith");
+        copy.addContact(new Person("Jane", "Roe", "987 654 321"));
+
+        // then
+        assertEquals(2, copy.count());
+        assertEquals(List.of(copy.getContact(0)), copy.search("smith"));
+        assertTrue(copy.search("doe").isEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactClockTest {
+
+    @AfterEach
+    void tearDown() {
+        AbstractContact.setClock(ContactClock.system());
+    }
+
+    @Test
+    @DisplayName("Should stamp created and edit times from the configured clock")
+    void testStampsFromClock() {
+        // given
+        LocalDateTime created = LocalDateTime.of(2024, 3, 1, 12, 30, 15);
+        AtomicLong now = new AtomicLong(created.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        AbstractContact.setClock(now::get);
+        Person person = new Person("John", "Doe", "123");
+
+        // when
+        now.addAndGet(60_000);
+        person.updateField("name", "Jane");
+
+        // then
+        assertEquals(created, person.getCreatedTime());
+        assertEquals(created.plusMinutes(1), person.getLastEditTime());
+    }
+
+    @Test
+    @DisplayName("Should keep restored times unchanged")
+    void testRestoresTimes() {
+        // given
+        Organization organization = new Organization("Shop", "Wall St. 1", "123");
+        long created = Instant.parse("2023-01-02T03:04:05.006Z").toEpochMilli();
+        long edited = created + 86_400_000;
+
+        // when
+        organization.restoreTimes(created, edited);
+
+        // then
+        assertEquals(created, organization.createdMillis());
+        assertEquals(edited, organization.lastEditMillis());
+        assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(created), ZoneId.systemDefault()), organization.getCreatedTime());
+    }
+
+    @Test
+    @DisplayName("Should advance a coarse clock at its resolution")
+    void testCoarseClock() throws InterruptedException {
+        // given
+        try (ContactClock.Coarse clock = (ContactClock.Coarse) ContactClock.coarse(5)) {
+            long start = clock.millis();
+
+            // when
+            Thread.sleep(100);
+
+            // then
+            assertTrue(clock.millis() > start);
+            assertTrue(clock.millis() <= System.currentTimeMillis());
+        }
+        assertThrows(IllegalArgumentException.class, () -> ContactClock.coarse(0));
+    }
+}
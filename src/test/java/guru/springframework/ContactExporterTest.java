@@ -0,0 +1,115 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactExporterTest {
+
+    @TempDir
+    Path directory;
+
+    private PhoneBook phoneBook;
+
+    @BeforeEach
+    void setUp() {
+        phoneBook = new PhoneBook();
+        phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+        phoneBook.addContact(new Organization("Pizza, Pasta & Co", "Wall St. \"1\"", "+0 (123) 456-789-9999"));
+        Person jane = new Person("Jane", "Smith", "987 654 321");
+        jane.updateField("gender", "F");
+        phoneBook.addContact(jane);
+    }
+
+    @Test
+    @DisplayName("Should write CSV with a header row and quote values that need it")
+    void testExportCsv() throws IOException {
+        // given
+        StringWriter writer = new StringWriter();
+
+        // when
+        long exported = new ContactExporter(phoneBook).exportCsv(writer);
+
+        // then
+        assertEquals(3, exported);
+        assertEquals("id,type,name,surname,birthDate,gender,phoneNumber,organizationName,address\n"
+                + "1,person,John,Doe,[no data],[no data],123 456 789,,\n"
+                + "2,organization,,,,,+0 (123) 456-789-9999,\"Pizza, Pasta & Co\",\"Wall St. \"\"1\"\"\"\n"
+                + "3,person,Jane,Smith,[no data],F,987 654 321,,\n", writer.toString());
+    }
+
+    @Test
+    @DisplayName("Should write a JSON array of contacts")
+    void testExportJson() throws IOException {
+        // given
+        StringWriter writer = new StringWriter();
+
+        // when
+        new ContactExporter(phoneBook).exportJson(writer);
+
+        // then
+        assertTrue(writer.toString().startsWith("[{\"id\":1,\"type\":\"person\",\"name\":\"John\",\"surname\":\"Doe\","
+                + "\"birthDate\":\"[no data]\",\"gender\":\"[no data]\",\"phoneNumber\":\"123 456 789\"},"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"contacts.csv", "contacts.json", "contacts.csv.gz", "contacts.json.gz"})
+    @DisplayName("Should export files that import back to the same contacts")
+    void testRoundTrip(String fileName) throws IOException {
+        // given
+        Path file = directory.resolve(fileName);
+        PhoneBook imported = new PhoneBook();
+
+        // when
+        ContactExporter.ExportResult result = new ContactExporter(phoneBook).exportFile(file);
+        ContactImporter.ImportResult importResult = new ContactImporter(imported).importFile(file);
+
+        // then
+        assertEquals(3, result.exported());
+        assertEquals(Files.size(file), result.bytes());
+        assertEquals(3, importResult.imported());
+        assertEquals(0, importResult.rejected());
+        for (int i = 0; i < 3; i++) {
+            AbstractContact original = phoneBook.getContact(i);
+            AbstractContact copy = imported.getContact(i);
+            assertEquals(original.getType(), copy.getType());
+            for (String field : original.getEditableFields()) {
+                assertEquals(original.getFieldValue(field), copy.getFieldValue(field));
+            }
+        }
+        if (fileName.endsWith(".gz")) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                assertTrue(in.readAllBytes().length > result.bytes());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should export a book larger than one page")
+    void testExportManyPages() throws IOException {
+        // given
+        for (int i = 0; i < ContactExporter.PAGE_SIZE * 2 + 10; i++) {
+            phoneBook.addContact(new Person("Name" + i, "Surname", "100 " + i));
+        }
+        Path file = directory.resolve("many.csv");
+
+        // when
+        ContactExporter.ExportResult result = new ContactExporter(phoneBook).exportFile(file);
+
+        // then
+        assertEquals(phoneBook.count(), result.exported());
+        assertEquals(phoneBook.count() + 1, Files.readAllLines(file).size());
+    }
+}
@@ -0,0 +1,91 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactImporterTest {
+
+    private PhoneBook phoneBook;
+    private ContactImporter importer;
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void setUp() {
+        phoneBook = new PhoneBook();
+        importer = new ContactImporter(phoneBook, 2);
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @Test
+    @DisplayName("Should import valid CSV rows and count the rejected ones")
+    void testImportCsv() throws IOException {
+        // given
+        String csv = "type,name,surname,organizationName,address,phoneNumber\n" +
+                "person,John,Doe,,,123 456 789\n" +
+                "organization,,,\"Pizza, Pasta & Co\",\"Wall St. \"\"1\"\"\",+0 (123) 456-789-9999\n" +
+                "person,Jane,Smith,,,12--34\n" +
+                "robot,R2,D2,,,123 456\n" +
+                "person,Too,Short\n" +
+                "person,Mary,Major,,,\n";
+
+        // when
+        ContactImporter.ImportResult result = importer.importCsv(new StringReader(csv));
+
+        // then
+        assertEquals(3, result.imported());
+        assertEquals(3, result.rejected());
+        assertEquals(3, phoneBook.count());
+        assertEquals("Pizza, Pasta & Co", phoneBook.getContact(1).getFieldValue("organizationName"));
+        assertEquals("Wall St. \"1\"", phoneBook.getContact(1).getFieldValue("address"));
+        assertEquals("[no number]", phoneBook.getContact(2).getFieldValue("phoneNumber"));
+        assertFalse(outContent.toString().contains("Wrong number format!"));
+    }
+
+    @Test
+    @DisplayName("Should import contacts from a JSON array")
+    void testImportJson() throws IOException {
+        // given
+        String json = "[{\"type\":\"person\",\"name\":\"John\",\"surname\":\"Doe\",\"gender\":\"M\",\"phoneNumber\":\"123 456 789\"}," +
+                "{\"type\":\"organization\",\"organizationName\":\"Pizza Shop\",\"address\":\"Wall St. 1\",\"phoneNumber\":\"+0 (123)\"}," +
+                "{\"type\":\"person\",\"name\":\"Bad\",\"phoneNumber\":\"1 2\"}, 42]";
+
+        // when
+        ContactImporter.ImportResult result = importer.importJson(new StringReader(json));
+
+        // then
+        assertEquals(2, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals("M", phoneBook.getContact(0).getFieldValue("gender"));
+        assertEquals(1, phoneBook.findByPhone("0123").size());
+    }
+
+    @Test
+    @DisplayName("Should pick the format from the file extension and make the contacts searchable")
+    void testImportFile(@TempDir Path directory) throws IOException {
+        // given
+        Path csv = directory.resolve("contacts.csv");
+        Files.writeString(csv, "type,name,surname,phoneNumber\nperson,John,Doe,123 456 789\n");
+        Path json = directory.resolve("contacts.json");
+        Files.writeString(json, "[{\"type\":\"person\",\"name\":\"Jane\",\"surname\":\"Doe\",\"phoneNumber\":\"987 654 321\"}]");
+
+        // when
+        importer.importFile(csv);
+        ContactImporter.ImportResult result = importer.importFile(json);
+
+        // then
+        assertEquals(1, result.imported());
+        assertEquals(2, phoneBook.search("doe").size());
+        assertTrue(result.toString().startsWith("Imported 1 records, rejected 0 rows"));
+    }
+}
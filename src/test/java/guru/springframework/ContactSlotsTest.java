@@ -0,0 +1,69 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactSlotsTest {
+
+    private ContactSlots slots;
+
+    @BeforeEach
+    void setUp() {
+        slots = new ContactSlots();
+    }
+
+    @Test
+    @DisplayName("Should keep listing order when contacts are removed")
+    void testRemoveKeepsOrder() {
+        // given
+        Person first = new Person("A", "A", "1");
+        Person second = new Person("B", "B", "2");
+        Person third = new Person("C", "C", "3");
+        slots.add(first);
+        slots.add(second);
+        slots.add(third);
+
+        // when
+        slots.remove(second);
+
+        // then
+        assertEquals(2, slots.size());
+        assertSame(first, slots.get(0));
+        assertSame(third, slots.get(1));
+    }
+
+    @Test
+    @DisplayName("Should match a list through random adds, removes and compactions")
+    void testAgainstList() {
+        // given
+        Random random = new Random(42);
+        List<AbstractContact> expected = new ArrayList<>();
+
+        // when
+        for (int step = 0; step < 20_000; step++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                Person person = new Person("N" + step, "S", "1");
+                slots.add(person);
+                expected.add(person);
+            } else {
+                slots.remove(expected.remove(random.nextInt(expected.size())));
+            }
+
+            // then
+            if (step % 500 == 0 && !expected.isEmpty()) {
+                assertEquals(expected.size(), slots.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertSame(expected.get(i), slots.get(i));
+                }
+            }
+        }
+        assertTrue(slots.slotCount() <= 2 * slots.size() || slots.slotCount() < 64);
+    }
+}
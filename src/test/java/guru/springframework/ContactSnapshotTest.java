@@ -0,0 +1,102 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private Path snapshotFile;
+    private Person person;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        PhoneBook phoneBook = new PhoneBook();
+        person = new Person("Jöhn", "Doe", "123 456 789");
+        person.updateField("gender", "M");
+        phoneBook.addContact(person);
+        Organization removed = new Organization("Closed Shop", "Nowhere", "555 555");
+        phoneBook.addContact(removed);
+        phoneBook.addContact(new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999"));
+        phoneBook.removeContact(removed);
+        snapshotFile = directory.resolve("book.bin");
+        phoneBook.writeSnapshot(snapshotFile);
+    }
+
+    @Test
+    @DisplayName("Should read every field, id and time back from the snapshot")
+    void testRoundTrip() throws IOException {
+        // when
+        PhoneBook phoneBook = PhoneBook.openSnapshot(snapshotFile);
+
+        // then
+        assertEquals(2, phoneBook.count());
+        AbstractContact restored = phoneBook.getContact(0);
+        assertEquals(person.getAllFieldsForSearch(), restored.getAllFieldsForSearch());
+        assertEquals(1, restored.getId());
+        assertEquals(person.createdMillis(), restored.createdMillis());
+        assertEquals(person.lastEditMillis(), restored.lastEditMillis());
+        assertEquals("Pizza Shop", phoneBook.getContactById(3).getFieldValue("organizationName"));
+        assertNull(phoneBook.getContactById(2));
+        assertSame(phoneBook.getContact(1), phoneBook.getContactById(3));
+    }
+
+    @Test
+    @DisplayName("Should answer lookups from the mapped file and load it on the first change")
+    void testLazyLoading() throws IOException {
+        // given
+        PhoneBook phoneBook = PhoneBook.openSnapshot(snapshotFile);
+
+        // when
+        int regexMatches = phoneBook.search("^p.zza").size();
+        phoneBook.getContact(0).updateField("surname", "Smith");
+        phoneBook.addContact(new Person("Jane", "Roe", "987 654 321"));
+
+        // then
+        assertEquals(1, regexMatches);
+        assertEquals(3, phoneBook.count());
+        assertEquals(1, phoneBook.search("smith").size());
+        assertEquals(0, phoneBook.search("doe").size());
+        assertEquals(1, phoneBook.findByPhone("0 123 456 789 9999").size());
+        assertEquals(4, phoneBook.getContact(2).getId());
+    }
+
+    @Test
+    @DisplayName("Should reject files that are not snapshots")
+    void testInvalidFile() throws IOException {
+        // given
+        Path other = directory.resolve("other.bin");
+        Files.write(other, new byte[64]);
+
+        // when & then
+        assertThrows(IOException.class, () -> PhoneBook.openSnapshot(other));
+    }
+
+    @Test
+    @DisplayName("Should name the file when it is empty or cut short")
+    void testEmptyAndTruncatedFiles() throws IOException {
+        // given
+        Path empty = Files.createFile(directory.resolve("empty.bin"));
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        Path truncated = Files.write(directory.resolve("truncated.bin"), Arrays.copyOf(bytes, bytes.length - 4));
+
+        // when
+        IOException emptyFailure = assertThrows(IOException.class, () -> PhoneBook.openSnapshot(empty));
+        IOException truncatedFailure = assertThrows(IOException.class, () -> PhoneBook.openSnapshot(truncated));
+
+        // then
+        assertTrue(emptyFailure.getMessage().endsWith(empty.toString()));
+        assertTrue(truncatedFailure.getMessage().endsWith(truncated.toString()));
+    }
+}
@@ -0,0 +1,63 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldIndexTest {
+
+    private Person john;
+    private Person jane;
+    private Organization shop;
+
+    @BeforeEach
+    void setUp() {
+        john = new Person("John", "Doe", "123");
+        john.attach(null, 1);
+        jane = new Person("Jane", "Doe", "456");
+        jane.attach(null, 2);
+        shop = new Organization("Pizza Shop", "Wall St. 1", "789");
+        shop.attach(null, 3);
+    }
+
+    @Test
+    @DisplayName("Should index only contacts that have the field")
+    void testFind() {
+        // given
+        FieldIndex fieldIndex = new FieldIndex("surname", false);
+
+        // when
+        fieldIndex.add(john);
+        fieldIndex.add(jane);
+        fieldIndex.add(shop);
+
+        // then
+        assertFalse(fieldIndex.isSorted());
+        assertEquals(Set.of(1L, 2L), fieldIndex.find("Doe"));
+        assertTrue(fieldIndex.find("").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should answer inclusive and open ranges from a sorted index")
+    void testRange() {
+        // given
+        FieldIndex fieldIndex = new FieldIndex("phoneNumber", true);
+        fieldIndex.add(john);
+        fieldIndex.add(jane);
+        fieldIndex.add(shop);
+
+        // when
+        fieldIndex.update(2, "456", "500");
+        fieldIndex.remove(shop);
+
+        // then
+        assertEquals(List.of(1L, 2L), fieldIndex.range("123", "500"));
+        assertEquals(List.of(2L), fieldIndex.range("2", null));
+        assertEquals(List.of(1L), fieldIndex.range(null, "499"));
+    }
+}
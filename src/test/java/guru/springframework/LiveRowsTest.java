@@ -0,0 +1,72 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveRowsTest {
+
+    private LiveRows rows;
+
+    @BeforeEach
+    void setUp() {
+        rows = new LiveRows();
+    }
+
+    @Test
+    @DisplayName("Should find the rows of listing positions around removed rows")
+    void testRowOfWithHoles() {
+        // given
+        for (int i = 0; i < 5; i++) {
+            rows.add();
+        }
+
+        // when
+        rows.remove(1);
+        rows.remove(3);
+
+        // then
+        assertEquals(3, rows.count());
+        assertEquals(5, rows.rows());
+        assertTrue(rows.isRemoved(1));
+        assertEquals(0, rows.rowOf(0));
+        assertEquals(2, rows.rowOf(1));
+        assertEquals(4, rows.rowOf(2));
+    }
+
+    @Test
+    @DisplayName("Should ask for compaction once more than half of the rows are removed")
+    void testCompaction() {
+        // given
+        Random random = new Random(7);
+        List<Integer> live = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add();
+            live.add(i);
+        }
+
+        // when
+        boolean compact = false;
+        while (!compact) {
+            int row = live.remove(random.nextInt(live.size()));
+            compact = rows.remove(row);
+            for (int index = 0; index < live.size(); index += 37) {
+                assertEquals(live.get(index), rows.rowOf(index));
+            }
+        }
+        rows.compacted();
+
+        // then
+        assertEquals(live.size(), rows.count());
+        assertEquals(live.size(), rows.rows());
+        assertTrue(rows.count() < 500);
+        assertFalse(rows.isRemoved(0));
+        assertEquals(rows.count() - 1, rows.rowOf(rows.count() - 1));
+    }
+}
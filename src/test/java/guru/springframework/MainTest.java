@@ -80,6 +80,25 @@ class MainTest {
         verify(mockScanner, times(2)).nextLine();
     }
 
+    @Test
+    @DisplayName("Should move between pages of the list")
+    void testHandleListPages() {
+        // given
+        for (int i = 1; i <= Main.PAGE_SIZE + 5; i++) {
+            phoneBook.addContact(new Person("Name" + i, "Surname", "123"));
+        }
+        when(mockScanner.nextLine()).thenReturn("next", "next", "prev", "back");
+
+        // when
+        Main.handleList(phoneBook, mockScanner);
+
+        // then
+        String output = outContent.toString();
+        assertEquals(2, output.split("1\\. Name1 ", -1).length - 1);
+        assertEquals(2, output.split((Main.PAGE_SIZE + 1) + "\\. Name" + (Main.PAGE_SIZE + 1) + " ", -1).length - 1);
+        verify(mockScanner, times(4)).nextLine();
+    }
+
     @Test
     @DisplayName("Should edit a person's surname in the phone book")
     void testHandleEditPerson() {
@@ -267,4 +286,28 @@ class MainTest {
         // then
         assertTrue(outContent.toString().contains("Enter search query:"));
     }
+
+    @Test
+    @DisplayName("Should move between pages of search results and select from the shown page")
+    void testHandleSearchPages() {
+        // given
+        for (int i = 1; i <= Main.PAGE_SIZE + 5; i++) {
+            phoneBook.addContact(new Person("Name" + i, "Smith", "123"));
+        }
+        phoneBook.addContact(new Person("John", "Doe", "123"));
+        when(mockScanner.nextLine()).thenReturn("Smith", "next", "1", String.valueOf(Main.PAGE_SIZE + 2), "menu",
+                "prev", "back");
+
+        // when
+        Main.handleSearch(phoneBook, mockScanner);
+
+        // then
+        String output = outContent.toString();
+        assertTrue(output.contains("Found more than " + Main.PAGE_SIZE + " results, showing 1-" + Main.PAGE_SIZE + ":"));
+        assertTrue(output.contains("Found " + (Main.PAGE_SIZE + 5) + " results:"));
+        assertTrue(output.contains("Invalid index."));
+        assertTrue(output.contains("Name: Name" + (Main.PAGE_SIZE + 2)));
+        assertEquals(2, output.split("\\n1\\. Name1 ", -1).length - 1);
+        assertFalse(output.contains("John Doe"));
+    }
 }
@@ -0,0 +1,112 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapPhoneBookTest {
+
+    private OffHeapPhoneBook phoneBook;
+
+    @BeforeEach
+    void setUp() {
+        // Small arenas so that records are spread over several of them
+        phoneBook = new OffHeapPhoneBook(128);
+        phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+        phoneBook.addContact(new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999"));
+        phoneBook.addContact(new Person("Jürgen", "Doe", "987 654 321"));
+    }
+
+    @Test
+    @DisplayName("Should hand out views with the values and search text of the added contacts")
+    void testViews() {
+        // when
+        AbstractContact person = phoneBook.getContact(2);
+        AbstractContact organization = phoneBook.getContactById(2);
+
+        // then
+        assertEquals("person", person.getType());
+        assertEquals("Jürgen Doe [no data] [no data] 987 654 321", person.getAllFieldsForSearch());
+        assertEquals("Wall St. 1", organization.getFieldValue("address"));
+        assertEquals("", organization.getFieldValue("name"));
+        assertNotNull(organization.getCreatedTime());
+        assertNull(phoneBook.getContact(3));
+        assertTrue(phoneBook.offHeapBytes() > 128);
+    }
+
+    @Test
+    @DisplayName("Should match plain text and regex queries like PhoneBook")
+    void testSearch() {
+        // given
+        PhoneBook reference = new PhoneBook();
+        reference.addContact(new Person("John", "Doe", "123 456 789"));
+        reference.addContact(new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999"));
+        reference.addContact(new Person("Jürgen", "Doe", "987 654 321"));
+
+        // when & then
+        for (String query : List.of("DOE", "shop wall", "j", "ü", "^j.r", "\\d{3}-\\d", "nobody", "\\[no data\\] \\[no")) {
+            assertEquals(texts(reference.search(query)), texts(phoneBook.search(query)), query);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep edits and removals and reclaim old records on compaction")
+    void testUpdateRemoveAndCompact() {
+        // given
+        AbstractContact john = phoneBook.getContact(0);
+
+        // when
+        john.updateField("surname", "Smith");
+        phoneBook.removeContact(phoneBook.getContact(1));
+        long beforeCompaction = phoneBook.offHeapBytes();
+        phoneBook.compact();
+
+        // then
+        assertEquals(2, phoneBook.count());
+        assertEquals("John Smith [no data] [no data] 123 456 789", phoneBook.getContact(0).getAllFieldsForSearch());
+        assertEquals(List.of(john.getId()), phoneBook.search("smith").stream().map(AbstractContact::getId).toList());
+        assertTrue(phoneBook.offHeapBytes() < beforeCompaction);
+        assertEquals("Jürgen", phoneBook.getContact(1).getFieldValue("name"));
+    }
+
+    private static List<String> texts(List<AbstractContact> contacts) {
+        return contacts.stream().map(AbstractContact::getAllFieldsForSearch).toList();
+    }
+
+    @Test
+    @DisplayName("Should keep listing order through many removals")
+    void testManyRemovals() {
+        // given
+        int initial = phoneBook.count();
+        List<AbstractContact> added = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            phoneBook.addContact(new Person("Name" + i, "Surname" + i, "123"));
+            added.add(phoneBook.getContact(phoneBook.count() - 1));
+        }
+
+        // when
+        for (int i = 0; i < 200; i++) {
+            if (i % 4 != 0) {
+                phoneBook.removeContact(added.get(i));
+            }
+        }
+        long liveBytes = phoneBook.liveBytes();
+        phoneBook.compact();
+
+        // then
+        assertEquals(initial + 50, phoneBook.count());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("Name" + i * 4, phoneBook.getContact(initial + i).getFieldValue("name"));
+        }
+        assertNull(phoneBook.getContactById(added.get(1).getId()));
+        assertEquals("Surname196", phoneBook.getContactById(added.get(196).getId()).getFieldValue("surname"));
+        assertEquals(1, phoneBook.search("name8 ").size());
+        assertTrue(phoneBook.search("name9 ").isEmpty());
+        assertEquals(liveBytes, phoneBook.liveBytes());
+    }
+}
@@ -111,6 +111,23 @@ class PersonTest {
         assertEquals("", result);
     }
 
+    @Test
+    @DisplayName("Should reuse the search text until a field changes")
+    void testSearchTextCache() {
+        // given
+        String before = person.getAllFieldsForSearch();
+
+        // when
+        String again = person.getAllFieldsForSearch();
+        person.updateField("surname", "Doe");
+        person.restoreField("gender", "Male");
+
+        // then
+        assertSame(before, again);
+        assertEquals("John Doe [no data] Male 123-456-789", person.getAllFieldsForSearch());
+        assertEquals("john doe [no data] male 123-456-789", person.getNormalizedSearchText());
+    }
+
     @Test
     @DisplayName("Should display person details without errors")
     void testDisplay() {
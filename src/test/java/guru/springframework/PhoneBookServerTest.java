@@ -0,0 +1,120 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhoneBookServerTest {
+
+    private ConcurrentPhoneBook phoneBook;
+    private PhoneBookServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        phoneBook = new ConcurrentPhoneBook();
+        phoneBook.addContact(new Person("John", "Smith", "123 456 789"));
+        phoneBook.addContact(new Organization("Pizza Shop", "Wall St. 1", "987 654 321"));
+        server = PhoneBookServer.start(phoneBook, new InetSocketAddress("127.0.0.1", 0));
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    @DisplayName("Should search, get and count contacts")
+    void testLookups() throws Exception {
+        // when
+        HttpResponse<String> search = send("GET", "/contacts?q=john%20smith", null);
+        HttpResponse<String> page = send("GET", "/contacts?offset=1&limit=5", null);
+        HttpResponse<String> contact = send("GET", "/contacts/2", null);
+        HttpResponse<String> missing = send("GET", "/contacts/99", null);
+        HttpResponse<String> count = send("GET", "/count?q=pizza", null);
+        HttpResponse<String> badRegex = send("GET", "/contacts?q=%5Bunclosed", null);
+
+        // then
+        assertEquals(200, search.statusCode());
+        assertTrue(search.body().startsWith("[{\"id\":1,\"type\":\"person\",\"name\":\"John\",\"surname\":\"Smith\""));
+        assertTrue(page.body().startsWith("[{\"id\":2,"));
+        assertEquals(200, contact.statusCode());
+        assertTrue(contact.body().contains("\"organizationName\":\"Pizza Shop\""));
+        assertEquals(404, missing.statusCode());
+        assertEquals("{\"count\":1}", count.body());
+        assertEquals(400, badRegex.statusCode());
+    }
+
+    @Test
+    @DisplayName("Should add, edit and delete contacts")
+    void testChanges() throws Exception {
+        // when
+        HttpResponse<String> added = send("POST", "/contacts", "{\"type\":\"person\",\"name\":\"Jane\",\"surname\":\"Doe\",\"phoneNumber\":\"555 000 111\"}");
+        HttpResponse<String> rejected = send("POST", "/contacts", "{\"type\":\"robot\"}");
+        HttpResponse<String> edited = send("PATCH", "/contacts/3", "{\"surname\":\"Smith\",\"gender\":\"F\"}");
+        HttpResponse<String> badEdit = send("PATCH", "/contacts/3", "{\"name\":\"Janet\",\"phoneNumber\":\"(12)(34)\"}");
+        HttpResponse<String> malformed = send("PATCH", "/contacts/3", "{\"name\":");
+        HttpResponse<String> deleted = send("DELETE", "/contacts/1", null);
+
+        // then
+        assertEquals(201, added.statusCode());
+        assertTrue(added.body().startsWith("{\"id\":3,"));
+        assertEquals(400, rejected.statusCode());
+        assertEquals(200, edited.statusCode());
+        assertEquals(400, badEdit.statusCode());
+        assertEquals(400, malformed.statusCode());
+        assertEquals("Jane", phoneBook.getContactById(3).getFieldValue("name"));
+        assertEquals("F", phoneBook.getContactById(3).getFieldValue("gender"));
+        assertEquals(204, deleted.statusCode());
+        assertNull(phoneBook.getContactById(1));
+        assertEquals(List.of(phoneBook.getContactById(3)), phoneBook.search("smith"));
+    }
+
+    @Test
+    @DisplayName("Should serve many concurrent clients")
+    void testConcurrentClients() throws Exception {
+        // given
+        List<Future<Integer>> clients = new ArrayList<>();
+
+        // when
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < 50; c++) {
+                clients.add(executor.submit(() -> {
+                    int ok = 0;
+                    for (int i = 0; i < 20; i++) {
+                        ok += send("GET", "/contacts/" + (1 + i % 2), null).statusCode() == 200 ? 1 : 0;
+                    }
+                    return ok;
+                }));
+            }
+        }
+
+        // then
+        for (Future<Integer> ok : clients) {
+            assertEquals(20, ok.get());
+        }
+    }
+}
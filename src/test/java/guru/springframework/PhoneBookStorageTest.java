@@ -0,0 +1,151 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhoneBookStorageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should restore added, edited and removed contacts from the log")
+    void testReplayLog() throws IOException {
+        // given
+        try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+            PhoneBook phoneBook = storage.getPhoneBook();
+            Person person = new Person("John", "Doe", "123 456 789");
+            Organization organization = new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999");
+            phoneBook.addContact(person);
+            phoneBook.addContact(organization);
+            phoneBook.addContact(new Person("Jane", "Smith", "987 654 321"));
+            person.updateField("surname", "Doe Jr.");
+            phoneBook.removeContact(organization);
+        }
+
+        // when
+        try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+            PhoneBook phoneBook = storage.getPhoneBook();
+
+            // then
+            assertEquals(2, phoneBook.count());
+            assertEquals("John Doe Jr. [no data] [no data] 123 456 789", phoneBook.getContact(0).getAllFieldsForSearch());
+            assertEquals(3, phoneBook.getContact(1).getId());
+            assertEquals(1, phoneBook.search("doe jr").size());
+            assertEquals(1, phoneBook.findByPhone("987654321").size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the created and last edit times")
+    void testReplayKeepsTimes() throws IOException {
+        // given
+        Person person = new Person("John", "Doe", "123 456 789");
+        try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+            storage.getPhoneBook().addContact(person);
+        }
+
+        // when
+        try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+            AbstractContact restored = storage.getPhoneBook().getContact(0);
+
+            // then
+            assertEquals(person.createdMillis(), restored.createdMillis());
+            assertEquals(person.lastEditMillis(), restored.lastEditMillis());
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep times from the hour repeated when daylight saving time ends")
+    void testTimesAcrossDaylightSavingTime() throws IOException {
+        // given
+        TimeZone defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        long created = Instant.parse("2026-11-01T06:30:00Z").toEpochMilli(); // 01:30 EST, after 01:30 EDT
+        AbstractContact.setClock(() -> created);
+        try {
+            Person snapshotted = new Person("John", "Doe", "123 456 789");
+            Person logged = new Person("Jane", "Smith", "987 654 321");
+            try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+                storage.getPhoneBook().addContact(snapshotted);
+                storage.checkpoint();
+                storage.getPhoneBook().addContact(logged);
+            }
+
+            // when
+            try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+                PhoneBook phoneBook = storage.getPhoneBook();
+
+                // then
+                for (AbstractContact restored : List.of(phoneBook.getContact(0), phoneBook.getContact(1))) {
+                    assertEquals(created, restored.createdMillis());
+                    assertEquals(created, restored.lastEditMillis());
+                    assertEquals(snapshotted.getCreatedTime(), restored.getCreatedTime());
+                }
+            }
+        } finally {
+            AbstractContact.setClock(ContactClock.system());
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    @DisplayName("Should combine the snapshot with the changes logged after a checkpoint")
+    void testCheckpoint() throws IOException {
+        // given
+        try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+            PhoneBook phoneBook = storage.getPhoneBook();
+            phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+            phoneBook.addContact(new Person("Jane", "Smith", "987 654 321"));
+            storage.checkpoint();
+            phoneBook.getContact(0).updateField("name", "Jack");
+            phoneBook.addContact(new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999"));
+            assertEquals(0, phoneBook.search("John").size());
+        }
+
+        // when
+        try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+            PhoneBook phoneBook = storage.getPhoneBook();
+
+            // then
+            assertEquals(3, phoneBook.count());
+            assertEquals("Jack", phoneBook.getContact(0).getFieldValue("name"));
+            phoneBook.addContact(new Person("Mary", "Major", "555 555"));
+            assertEquals(4, phoneBook.getContact(3).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore a record that was only partly written")
+    void testTornTail() throws IOException {
+        // given
+        try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+            storage.getPhoneBook().addContact(new Person("John", "Doe", "123 456 789"));
+        }
+        Path logFile = directory.resolve(PhoneBookStorage.LOG_FILE);
+        long intactLength = Files.size(logFile);
+        Files.write(logFile, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // when
+        try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+            storage.getPhoneBook().addContact(new Person("Jane", "Smith", "987 654 321"));
+        }
+        try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+
+            // then
+            assertEquals(2, storage.getPhoneBook().count());
+            assertTrue(Files.size(logFile) > intactLength);
+        }
+    }
+}
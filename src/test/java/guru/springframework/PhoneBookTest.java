@@ -3,8 +3,14 @@ package guru.springframework;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 class PhoneBookTest {
@@ -102,6 +108,44 @@ class PhoneBookTest {
         assertEquals(expectedOutput.trim(), outContent.toString().trim());
     }
 
+    @Test
+    @DisplayName("Should list one page of contacts numbered by position")
+    void testListContactsPage() {
+        // given
+        for (int i = 1; i <= 5; i++) {
+            phoneBook.addContact(new Person("Name" + i, "Surname", "123"));
+        }
+        phoneBook.removeContact(phoneBook.getContact(1));
+
+        // when
+        phoneBook.listContacts(1, 2);
+
+        // then
+        String expectedOutput = "2. Name3 Surname [no data] [no data] 123\n" +
+                "3. Name4 Surname [no data] [no data] 123\n";
+        assertEquals(expectedOutput.trim(), outContent.toString().trim());
+    }
+
+    @Test
+    @DisplayName("Should page and stream contacts lazily in listing order")
+    void testPageAndStream() {
+        // given
+        for (int i = 1; i <= 5; i++) {
+            phoneBook.addContact(new Person("Name" + i, "Surname", "123"));
+        }
+        phoneBook.removeContact(phoneBook.getContact(2));
+
+        // when
+        List<AbstractContact> page = phoneBook.page(1, 10);
+        List<String> names = phoneBook.stream().map(contact -> contact.getFieldValue("name")).toList();
+
+        // then
+        assertEquals(List.of("Name2", "Name4", "Name5"), page.stream().map(contact -> contact.getFieldValue("name")).toList());
+        assertEquals(List.of("Name1", "Name2", "Name4", "Name5"), names);
+        assertTrue(phoneBook.page(4, 10).isEmpty());
+        assertFalse(phoneBook.iterator(4).hasNext());
+    }
+
     @Test
     @DisplayName("Should handle listing contacts when the phone book is empty")
     void testListContacts_empty() {
@@ -130,4 +174,377 @@ class PhoneBookTest {
         assertNull(negativeIndexContact);
         assertNull(outOfBoundsContact);
     }
+
+    @Test
+    @DisplayName("Should find contacts by a plain text query ignoring case")
+    void testSearchLiteralIgnoresCase() {
+        // given
+        phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+        phoneBook.addContact(new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999"));
+
+        // when
+        int byPartialWord = phoneBook.search("izz").size();
+        int byUpperCase = phoneBook.search("JOHN").size();
+        int acrossWords = phoneBook.search("shop wall").size();
+
+        // then
+        assertEquals(1, byPartialWord);
+        assertEquals(1, byUpperCase);
+        assertEquals(1, acrossWords);
+    }
+
+    @Test
+    @DisplayName("Should keep the search index in sync with edits and removals")
+    void testSearchAfterUpdateAndRemove() {
+        // given
+        Person person = new Person("John", "Doe", "123 456 789");
+        Organization organization = new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999");
+        phoneBook.addContact(person);
+        phoneBook.addContact(organization);
+
+        // when
+        person.updateField("surname", "Smith");
+        phoneBook.removeContact(organization);
+
+        // then
+        assertEquals(0, phoneBook.search("Doe").size());
+        assertEquals(1, phoneBook.search("smith").size());
+        assertEquals(0, phoneBook.search("Pizza").size());
+    }
+
+    @Test
+    @DisplayName("Should find contacts by word prefix")
+    void testSearchPrefix() {
+        // given
+        phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+        phoneBook.addContact(new Person("Johanna", "Smith", "987 654 321"));
+
+        // when
+        int byPrefix = phoneBook.searchPrefix("joh").size();
+        int byInnerFragment = phoneBook.searchPrefix("ohn").size();
+
+        // then
+        assertEquals(2, byPrefix);
+        assertEquals(0, byInnerFragment);
+    }
+
+    @Test
+    @DisplayName("Should still support regular expression queries")
+    void testSearchRegex() {
+        // given
+        phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+        phoneBook.addContact(new Person("Jane", "Smith", "987 654 321"));
+
+        // when
+        List<AbstractContact> results = phoneBook.search("^j.n");
+
+        // then
+        assertEquals(1, results.size());
+        assertEquals("Jane", results.get(0).getFieldValue("name"));
+    }
+
+    @Test
+    @DisplayName("Should return the same ordered regex results when scanning shards in parallel")
+    void testSearchRegexParallel() {
+        // given
+        PhoneBook parallelBook = new PhoneBook(0);
+        for (PhoneBook book : List.of(phoneBook, parallelBook)) {
+            for (int i = 0; i < 20_000; i++) {
+                book.addContact(new Person("Name" + i, i % 7 == 0 ? "Seven" : "Other", "123"));
+            }
+            for (int i = 0; i < 20_000; i += 3) {
+                book.removeContact(book.getContactById(i + 1));
+            }
+        }
+
+        // when
+        List<AbstractContact> sequential = phoneBook.search("^name\\d+ se.en");
+        List<AbstractContact> parallel = parallelBook.search("^name\\d+ se.en");
+
+        // then
+        assertFalse(sequential.isEmpty());
+        assertEquals(texts(sequential), texts(parallel));
+    }
+
+    private static List<String> texts(List<AbstractContact> contacts) {
+        return contacts.stream().map(AbstractContact::getAllFieldsForSearch).toList();
+    }
+
+    @Test
+    @DisplayName("Should page search results and stop scanning once the page is full")
+    void testSearchWithLimit() {
+        // given
+        for (int i = 1; i <= 10; i++) {
+            phoneBook.addContact(new Person("Name" + i, "Smith", "123"));
+        }
+        int[] visited = {0};
+
+        // when
+        List<AbstractContact> literalPage = phoneBook.search("smith", 2, 3);
+        List<AbstractContact> regexPage = phoneBook.search("^name\\d", 8, 5);
+        phoneBook.forEachMatch("smith", contact -> ++visited[0] < 4);
+
+        // then
+        assertEquals(List.of("Name3", "Name4", "Name5"), literalPage.stream().map(contact -> contact.getFieldValue("name")).toList());
+        assertEquals(List.of("Name9", "Name10"), regexPage.stream().map(contact -> contact.getFieldValue("name")).toList());
+        assertEquals(4, visited[0]);
+        assertTrue(phoneBook.search("smith", 0, 0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should count matches without collecting them")
+    void testCountMatches() {
+        // given
+        phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+        phoneBook.addContact(new Person("Jane", "Doe", "987 654 321"));
+        phoneBook.addContact(new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999"));
+
+        // when & then
+        assertEquals(2, phoneBook.countMatches("doe"));
+        assertEquals(2, phoneBook.countMatches("^j"));
+        assertEquals(0, phoneBook.countMatches("nobody"));
+    }
+
+    @Test
+    @DisplayName("Should find misspelled names ranked by edit distance")
+    void testSearchFuzzy() {
+        // given
+        phoneBook.addContact(new Person("John", "Smith", "123"));
+        phoneBook.addContact(new Person("Jane", "Smyth", "123"));
+        phoneBook.addContact(new Organization("Smiths Bakery", "Smith St. 1", "123"));
+        Person renamed = new Person("Bob", "Brown", "123");
+        phoneBook.addContact(renamed);
+
+        // when
+        List<AbstractContact> results = phoneBook.searchFuzzy("Smitj");
+        renamed.updateField("surname", "Smith");
+
+        // then
+        assertEquals(List.of("Smith", "Smyth", ""), results.stream().map(contact -> contact.getFieldValue("surname")).toList());
+        assertEquals(4, phoneBook.searchFuzzy("smith").size());
+        assertEquals(List.of(renamed), phoneBook.searchFuzzy("bob smyth"));
+        assertTrue(phoneBook.searchFuzzy("Brown").isEmpty());
+        assertTrue(phoneBook.searchFuzzy("  ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a contact that is already in a phone book")
+    void testAddContactTwice() {
+        // given
+        Person john = new Person("John", "Doe", "123");
+        phoneBook.addContact(john);
+        PhoneBook other = new PhoneBook();
+
+        // when & then
+        assertThrows(IllegalArgumentException.class, () -> phoneBook.addContact(john));
+        assertThrows(IllegalArgumentException.class, () -> other.addContact(john));
+        assertEquals(1, phoneBook.count());
+        phoneBook.removeContact(john);
+        phoneBook.addContact(john);
+        assertEquals(List.of(john), phoneBook.search("john"));
+        assertEquals(1, phoneBook.count());
+        assertEquals(0, other.count());
+    }
+
+    @Test
+    @DisplayName("Should find contacts by field value with and without an index")
+    void testFindBy() {
+        // given
+        Person john = new Person("John", "Doe", "123");
+        phoneBook.addContact(john);
+        phoneBook.addContact(new Organization("Pizza Shop", "Wall St. 1", "456"));
+        phoneBook.addContact(new Organization("Barber", "Wall St. 1", "789"));
+        List<AbstractContact> scanned = phoneBook.findBy("address", "Wall St. 1");
+
+        // when
+        phoneBook.createIndex("address", false);
+        phoneBook.createIndex("surname", true);
+        john.updateField("surname", "Brown");
+
+        // then
+        assertEquals(scanned, phoneBook.findBy("address", "Wall St. 1"));
+        assertEquals(2, scanned.size());
+        assertTrue(phoneBook.findBy("surname", "Doe").isEmpty());
+        assertEquals(List.of(john), phoneBook.findBy("surname", "Brown"));
+        assertEquals(List.of(john), phoneBook.findRange("surname", "A", "C"));
+        assertEquals(List.of("Barber"), phoneBook.findRange("organizationName", null, "C").stream()
+                .map(contact -> contact.getFieldValue("organizationName")).toList());
+    }
+
+    @Test
+    @DisplayName("Should find nothing in a reversed range with and without a sorted index")
+    void testFindRangeReversed() {
+        // given
+        phoneBook.addContact(new Person("John", "Brown", "123"));
+        phoneBook.addContact(new Person("Jane", "Doe", "456"));
+        List<AbstractContact> scanned = phoneBook.findRange("surname", "C", "A");
+
+        // when
+        phoneBook.createIndex("surname", true);
+
+        // then
+        assertTrue(scanned.isEmpty());
+        assertTrue(phoneBook.findRange("surname", "C", "A").isEmpty());
+        assertEquals(1, phoneBook.findRange("surname", "A", "C").size());
+    }
+
+    @Test
+    @DisplayName("Should leave contacts with a null field value out of field lookups")
+    void testFindByNullValue() {
+        // given
+        Person john = new Person("John", "Brown", "123");
+        Person jane = new Person("Jane", "Doe", "456");
+        phoneBook.addContact(john);
+        phoneBook.addContact(jane);
+        phoneBook.createIndex("surname", true);
+        phoneBook.createIndex("name", false);
+
+        // when
+        john.updateField("surname", null);
+        jane.updateField("name", null);
+
+        // then
+        assertEquals(List.of(jane), phoneBook.findRange("surname", null, null));
+        assertTrue(phoneBook.findBy("name", null).isEmpty());
+        phoneBook.dropIndex("surname");
+        assertEquals(List.of(jane), phoneBook.findRange("surname", null, null));
+    }
+
+    @Test
+    @DisplayName("Should find contacts by phone number ignoring formatting")
+    void testFindByPhone() {
+        // given
+        phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+        phoneBook.addContact(new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999"));
+
+        // when
+        List<AbstractContact> exact = phoneBook.findByPhone("123-456-789");
+        List<AbstractContact> byPrefix = phoneBook.findByPhonePrefix("+0 (12");
+        List<AbstractContact> unknown = phoneBook.findByPhone("555");
+
+        // then
+        assertEquals(1, exact.size());
+        assertEquals("John", exact.get(0).getFieldValue("name"));
+        assertEquals(1, byPrefix.size());
+        assertEquals("Pizza Shop", byPrefix.get(0).getFieldValue("organizationName"));
+        assertTrue(unknown.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should update the phone lookup when the number is edited or the contact removed")
+    void testFindByPhoneAfterUpdate() {
+        // given
+        Person person = new Person("John", "Doe", "123 456 789");
+        Person other = new Person("Jane", "Smith", "987 654 321");
+        phoneBook.addContact(person);
+        phoneBook.addContact(other);
+
+        // when
+        person.updateField("phoneNumber", "555 000 111");
+        phoneBook.removeContact(other);
+
+        // then
+        assertTrue(phoneBook.findByPhone("123456789").isEmpty());
+        assertEquals(1, phoneBook.findByPhone("555000111").size());
+        assertTrue(phoneBook.findByPhonePrefix("98").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should update the phone lookup when the number is set through the setter")
+    void testFindByPhoneAfterSetter() {
+        // given
+        Person person = new Person("John", "Doe", "123 456 789");
+        phoneBook.addContact(person);
+
+        // when
+        person.setPhoneNumber("555 000 111");
+
+        // then
+        assertTrue(phoneBook.findByPhone("123456789").isEmpty());
+        assertEquals(List.of(person), phoneBook.findByPhone("555000111"));
+        assertEquals(List.of(person), phoneBook.search("555"));
+    }
+
+    @Test
+    @DisplayName("Should apply a batch of edits, reject invalid ones and keep the indexes in sync")
+    void testApplyBatch() {
+        // given
+        Person person = new Person("John", "Doe", "123 456 789");
+        Organization organization = new Organization("Pizza Shop", "Wall St. 1", "987 654 321");
+        phoneBook.addContact(person);
+        phoneBook.addContact(organization);
+        phoneBook.createIndex("surname", false);
+        List<String> updates = new ArrayList<>();
+        phoneBook.addListener(new PhoneBookListener() {
+            public void contactAdded(AbstractContact contact) {
+            }
+
+            public void contactUpdated(AbstractContact contact, String field, String oldValue, String newValue) {
+                updates.add(field + ":" + oldValue + ">" + newValue);
+            }
+
+            public void contactRemoved(AbstractContact contact) {
+            }
+        });
+        FieldUpdate unknownContact = new FieldUpdate(99, "name", "Ghost");
+        FieldUpdate unknownField = new FieldUpdate(organization.getId(), "surname", "Smith");
+        FieldUpdate badNumber = new FieldUpdate(person.getId(), "phoneNumber", "not a number");
+
+        // when
+        List<FieldUpdate> rejected = phoneBook.applyBatch(List.of(
+                new FieldUpdate(person.getId(), "name", "Jack"),
+                unknownContact,
+                new FieldUpdate(person.getId(), "surname", "Smith"),
+                unknownField,
+                new FieldUpdate(person.getId(), "name", "Jake"),
+                new FieldUpdate(organization.getId(), "phoneNumber", "555 000 111"),
+                badNumber));
+
+        // then
+        assertEquals(List.of(unknownContact, unknownField, badNumber), rejected);
+        assertEquals("Jake", person.getFieldValue("name"));
+        assertEquals("123 456 789", person.getFieldValue("phoneNumber"));
+        assertEquals(List.of(person), phoneBook.search("jake smith"));
+        assertTrue(phoneBook.search("john").isEmpty());
+        assertEquals(List.of(person), phoneBook.findBy("surname", "Smith"));
+        assertTrue(phoneBook.findBy("surname", "Doe").isEmpty());
+        assertEquals(List.of(person), phoneBook.searchFuzzy("jakr"));
+        assertEquals(List.of(organization), phoneBook.findByPhone("555000111"));
+        assertTrue(phoneBook.findByPhone("987654321").isEmpty());
+        assertEquals(List.of("name:John>Jake", "surname:Doe>Smith", "phoneNumber:987 654 321>555 000 111"), updates);
+    }
+
+    static <T> T serializedCopy(T object) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            @SuppressWarnings("unchecked")
+            T copy = (T) in.readObject();
+            return copy;
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep searching, adding and indexing edits after deserialization")
+    void testSerialization() throws Exception {
+        // given
+        phoneBook.addContact(new Person("John", "Doe", "123 456 789"));
+        phoneBook.addContact(new Organization("Pizza Shop", "Wall St. 1", "+0 (123) 456-789-9999"));
+        phoneBook.search("john");
+
+        // when
+        PhoneBook copy = serializedCopy(phoneBook);
+        copy.getContact(0).updateField("name", "Jack");
+        copy.addContact(new Person("Jane", "Smith", "987 654 321"));
+
+        // then
+        assertEquals(3, copy.count());
+        assertTrue(copy.search("john").isEmpty());
+        assertEquals(List.of(copy.getContact(0)), copy.search("jack"));
+        assertEquals(List.of(copy.getContact(0)), copy.findByPhone("123456789"));
+        assertEquals(3, copy.getContact(2).getId());
+        assertEquals(1, phoneBook.search("john").size());
+    }
 }
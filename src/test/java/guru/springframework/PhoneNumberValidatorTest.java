@@ -0,0 +1,64 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhoneNumberValidatorTest {
+
+    // The regular expressions the validator replaces, used as the reference implementation
+    private static final Pattern REGEX_ONE = Pattern.compile("\\+?\\(?(\\w{2,}|\\d)\\)?((-|\\s)\\w{2,})*");
+    private static final Pattern REGEX_TWO = Pattern.compile("\\+?(\\w{2,}|\\d)(-|\\s)\\(?\\w{2,}\\)?((-|\\s)\\w{2,})*");
+
+    private static final String ALPHABET = "+()- \t\n\u000B\f\r_aZ09.é ";
+
+    private static boolean matchesReference(String number) {
+        return REGEX_ONE.matcher(number).matches() || REGEX_TWO.matcher(number).matches();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"123 456 789", "+0 (123) 456-789-9999", "123-456-789", "(123) 456",
+            "1 (23) 45", "ab-cd", "+1", "9", "(12)", "(1) 23"})
+    @DisplayName("Should accept the formats accepted by the original regular expressions")
+    void testValidNumbers(String number) {
+        // when & then
+        assertTrue(PhoneNumberValidator.isValid(number));
+        assertTrue(matchesReference(number));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "+", "a", "()", "123--456", "123 4", "(123) (456)", "1 2", "+0 (123) 456-78-9 ",
+            "12)34", "++12", "[no number]"})
+    @DisplayName("Should reject the formats rejected by the original regular expressions")
+    void testInvalidNumbers(String number) {
+        // when & then
+        assertFalse(PhoneNumberValidator.isValid(number));
+        assertFalse(matchesReference(number));
+    }
+
+    @Test
+    @DisplayName("Should agree with the original regular expressions on random input")
+    void testDifferentialAgainstRegex() {
+        // given
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500_000; i++) {
+            int length = random.nextInt(14);
+            StringBuilder number = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                number.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            String candidate = number.toString();
+
+            // when & then
+            assertEquals(matchesReference(candidate), PhoneNumberValidator.isValid(candidate),
+                    () -> "Validator disagrees with the regular expressions for \"" + candidate + "\"");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhoneTrieTest {
+
+    private PhoneTrie phoneTrie;
+
+    @BeforeEach
+    void setUp() {
+        phoneTrie = new PhoneTrie();
+        phoneTrie.add(1, "123 456 789");
+        phoneTrie.add(2, "+1 (234) 000");
+        phoneTrie.add(3, "123-456-789");
+    }
+
+    @Test
+    @DisplayName("Should match numbers by digits regardless of formatting")
+    void testFind() {
+        // when & then
+        assertEquals(List.of(1L, 3L), List.copyOf(phoneTrie.find("(123) 456 789")));
+        assertTrue(phoneTrie.find("123").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return every number below a prefix")
+    void testFindByPrefix() {
+        // when & then
+        assertEquals(List.of(1L, 2L, 3L), List.copyOf(phoneTrie.findByPrefix("1")));
+        assertEquals(List.of(2L), List.copyOf(phoneTrie.findByPrefix("1 (234) 0")));
+        assertTrue(phoneTrie.findByPrefix("9").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should forget removed numbers and ignore values without digits")
+    void testRemove() {
+        // given
+        phoneTrie.add(4, "[no number]");
+
+        // when
+        phoneTrie.remove(1, "123 456 789");
+        phoneTrie.remove(2, "+1 (234) 000");
+
+        // then
+        assertEquals(List.of(3L), List.copyOf(phoneTrie.findByPrefix("")));
+    }
+
+    @Test
+    @DisplayName("Should find nothing for a prefix without digits or letters")
+    void testFindByPrefixWithoutDigits() {
+        // when & then
+        assertTrue(phoneTrie.findByPrefix("+-").isEmpty());
+        assertTrue(phoneTrie.findByPrefix("abc").isEmpty());
+        assertEquals(3, phoneTrie.findByPrefix("").size());
+    }
+
+    @Test
+    @DisplayName("Should key letters by their keypad digit")
+    void testLetters() {
+        // given
+        phoneTrie.add(4, "1-800-FLOWERS");
+        phoneTrie.add(5, "ab-cd");
+
+        // when & then
+        assertEquals(List.of(4L), List.copyOf(phoneTrie.find("1-800-flowers")));
+        assertEquals(List.of(4L), List.copyOf(phoneTrie.find("1 800 356 9377")));
+        assertTrue(phoneTrie.find("1800").isEmpty());
+        assertEquals(List.of(5L), List.copyOf(phoneTrie.find("ab-cd")));
+        assertEquals(List.of(5L), List.copyOf(phoneTrie.findByPrefix("abc")));
+        assertEquals(List.of(4L), List.copyOf(phoneTrie.findByPrefix("1800")));
+    }
+}
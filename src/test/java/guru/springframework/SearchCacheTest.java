@@ -0,0 +1,87 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCacheTest {
+
+    private PhoneBook phoneBook;
+    private Person john;
+
+    @BeforeEach
+    void setUp() {
+        phoneBook = new PhoneBook();
+        john = new Person("John", "Doe", "123 456 789");
+        phoneBook.addContact(john);
+        phoneBook.addContact(new Organization("Pizza Shop", "Wall St. 1", "987 654 321"));
+    }
+
+    @Test
+    @DisplayName("Should answer a repeated search from the cache and count hits and misses")
+    void testRepeatedSearchHitsCache() {
+        // given
+        List<AbstractContact> first = phoneBook.search("^jo.n");
+
+        // when
+        first.clear();
+        List<AbstractContact> second = phoneBook.search("^jo.n");
+        int count = phoneBook.countMatches("^jo.n");
+        List<AbstractContact> page = phoneBook.search("^jo.n", 0, 10);
+
+        // then
+        assertEquals(List.of(john), second);
+        assertEquals(1, count);
+        assertEquals(List.of(john), page);
+        CacheStats stats = phoneBook.searchCacheStats();
+        assertEquals(1, stats.misses());
+        assertEquals(3, stats.hits());
+        assertEquals(1, stats.patternMisses());
+        assertEquals(1, stats.cachedResults());
+        assertEquals(0.75, stats.hitRate());
+    }
+
+    @Test
+    @DisplayName("Should recompute cached results after a contact is added, edited or removed")
+    void testInvalidatesOnChanges() {
+        // given
+        phoneBook.search("pizza");
+        phoneBook.search("smith");
+        Organization other = new Organization("Pizza Place", "Main St. 2", "555 000 111");
+
+        // when
+        phoneBook.addContact(other);
+        List<AbstractContact> afterAdd = phoneBook.search("pizza");
+        john.updateField("surname", "Smith");
+        List<AbstractContact> afterEdit = phoneBook.search("smith");
+        phoneBook.removeContact(other);
+        List<AbstractContact> afterRemove = phoneBook.search("pizza");
+        phoneBook.applyBatch(List.of(new FieldUpdate(john.getId(), "surname", "Doe")));
+        List<AbstractContact> afterBatch = phoneBook.search("smith");
+
+        // then
+        assertEquals(2, afterAdd.size());
+        assertEquals(List.of(john), afterEdit);
+        assertEquals(1, afterRemove.size());
+        assertTrue(afterBatch.isEmpty());
+        assertEquals(0, phoneBook.searchCacheStats().hits());
+    }
+
+    @Test
+    @DisplayName("Should neither cache nor count while disabled")
+    void testDisabled() {
+        // given
+        phoneBook.setSearchCacheEnabled(false);
+
+        // when
+        phoneBook.search("john");
+        phoneBook.search("john");
+
+        // then
+        assertEquals(new CacheStats(0, 0, 0, 0, 0, 0), phoneBook.searchCacheStats());
+    }
+}
@@ -0,0 +1,97 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenIndexTest {
+
+    private TokenIndex tokenIndex;
+
+    @BeforeEach
+    void setUp() {
+        tokenIndex = new TokenIndex();
+    }
+
+    private static List<Long> ids(Iterator<Long> iterator) {
+        List<Long> ids = new ArrayList<>();
+        iterator.forEachRemaining(ids::add);
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Should return ids of contacts whose tokens contain a fragment")
+    void testContaining() {
+        // given
+        tokenIndex.add(1, "John Doe 123 456 789");
+        tokenIndex.add(2, "Pizza Shop Wall St. 1 +0 (123) 456-789-9999");
+
+        // when & then
+        assertEquals(List.of(1L, 2L), ids(tokenIndex.containing("123")));
+        assertEquals(List.of(2L), ids(tokenIndex.containing("izz")));
+        assertTrue(ids(tokenIndex.containing("unknown")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should match short fragments and forget tokens once no contact has them")
+    void testContainingShortFragmentsAndRemoval() {
+        // given
+        tokenIndex.add(1, "Jo Doe");
+        tokenIndex.add(2, "Joanna Smith");
+
+        // when
+        tokenIndex.remove(2, "Joanna Smith");
+
+        // then
+        assertEquals(List.of(1L), ids(tokenIndex.containing("o")));
+        assertEquals(List.of(1L), ids(tokenIndex.containing("jo")));
+        assertTrue(ids(tokenIndex.containing("anna")).isEmpty());
+        assertTrue(ids(tokenIndex.containing("mit")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should merge the ids of several matching tokens in ascending order without duplicates")
+    void testContainingMergesPostings() {
+        // given
+        tokenIndex.add(3, "Anna Annabel");
+        tokenIndex.add(1, "Joanna");
+        tokenIndex.add(2, "Hannah");
+
+        // when
+        Iterator<Long> ids = tokenIndex.containing("ann");
+
+        // then
+        assertEquals(1L, ids.next());
+        assertEquals(List.of(2L, 3L), ids(ids));
+    }
+
+    @Test
+    @DisplayName("Should keep tokens that still occur in another field after an update")
+    void testUpdateKeepsSharedTokens() {
+        // given
+        tokenIndex.add(1, "John John 123");
+
+        // when
+        tokenIndex.update(1, "John", "Jack", "Jack John 123");
+
+        // then
+        assertFalse(tokenIndex.withPrefix("john").isEmpty());
+        assertFalse(tokenIndex.withPrefix("jack").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should treat only regex-free ASCII queries as literal")
+    void testIsLiteral() {
+        // when & then
+        assertTrue(TokenIndex.isLiteral("John Doe"));
+        assertFalse(TokenIndex.isLiteral("^John"));
+        assertFalse(TokenIndex.isLiteral("+0"));
+        assertFalse(TokenIndex.isLiteral("   "));
+    }
+}
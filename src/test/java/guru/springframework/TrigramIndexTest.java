@@ -0,0 +1,77 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex trigramIndex;
+
+    @BeforeEach
+    void setUp() {
+        trigramIndex = new TrigramIndex();
+        trigramIndex.add(1, "Jonathan Smith");
+        trigramIndex.add(2, "Jane Smyth");
+        trigramIndex.add(3, "Al Li");
+    }
+
+    @Test
+    @DisplayName("Should compute bounded edit distances")
+    void testDistance() {
+        // when & then
+        assertEquals(0, TrigramIndex.distance("smith", "smith", 2));
+        assertEquals(1, TrigramIndex.distance("smith", "smyth", 2));
+        assertEquals(3, TrigramIndex.distance("kitten", "sitting", 3));
+        assertEquals(2, TrigramIndex.distance("kitten", "sitting", 1));
+        assertEquals(3, TrigramIndex.distance("a", "abcd", 2));
+    }
+
+    @Test
+    @DisplayName("Should find words within the allowed distance only")
+    void testSimilarWords() {
+        // when
+        Map<String, Integer> similar = trigramIndex.similarWords("smith", 1);
+
+        // then
+        assertEquals(Map.of("smith", 0, "smyth", 1), similar);
+        assertEquals(Map.of("smith", 2), trigramIndex.similarWords("smiht", 2));
+        assertEquals(Map.of("jonathan", 1), trigramIndex.similarWords("jonathon", 1));
+        assertEquals(Map.of("al", 1, "li", 1), trigramIndex.similarWords("l", 1));
+    }
+
+    @Test
+    @DisplayName("Should find words sharing no trigram with a short query")
+    void testSimilarWordsWithoutSharedTrigrams() {
+        // given
+        trigramIndex.add(5, "Sxixh Smithsonian");
+
+        // when
+        Map<String, Integer> similar = trigramIndex.similarWords("smith", 2);
+
+        // then
+        assertEquals(2, similar.get("sxixh"));
+        assertFalse(similar.containsKey("smithsonian"));
+    }
+
+    @Test
+    @DisplayName("Should keep words still used by another name when updating")
+    void testUpdateAndRemove() {
+        // given
+        trigramIndex.add(4, "Smith Smith");
+
+        // when
+        trigramIndex.update(4, "Smith", "Brown", "Brown Smith");
+        trigramIndex.remove(1, "Jonathan Smith");
+
+        // then
+        assertEquals(Set.of(4L), trigramIndex.idsOf("smith"));
+        assertEquals(Set.of(4L), trigramIndex.idsOf("brown"));
+        assertTrue(trigramIndex.similarWords("jonathan", 1).isEmpty());
+    }
+}
@@ -0,0 +1,50 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValuePoolTest {
+
+    @AfterEach
+    void tearDown() {
+        ValuePool.setEnabled(true);
+    }
+
+    @Test
+    @DisplayName("Should share equal values between contacts and count the saved bytes")
+    void testSharesEqualValues() {
+        // given
+        long savedBefore = ValuePool.savedBytes();
+        Person first = new Person("John", new String("Pooled-Surname"), "123");
+        Person second = new Person("Jane", new String("Pooled-Surname"), "456");
+        Organization organization = new Organization("Shop", "Wall St. 1", "789");
+
+        // when
+        organization.updateField("address", new String("Pooled-Surname"));
+
+        // then
+        assertSame(first.getFieldValue("surname"), second.getFieldValue("surname"));
+        assertSame(first.getFieldValue("surname"), organization.getFieldValue("address"));
+        assertTrue(ValuePool.savedBytes() >= savedBefore + 2 * 40);
+        assertTrue(ValuePool.deduplicated() >= 2);
+    }
+
+    @Test
+    @DisplayName("Should keep values as given while disabled")
+    void testDisabled() {
+        // given
+        ValuePool.setEnabled(false);
+        String surname = new String("Unpooled-Surname");
+
+        // when
+        Person person = new Person("John", surname, "123");
+        Person other = new Person("John", new String("Unpooled-Surname"), "123");
+
+        // then
+        assertSame(surname, person.getFieldValue("surname"));
+        assertNotSame(person.getFieldValue("surname"), other.getFieldValue("surname"));
+    }
+}
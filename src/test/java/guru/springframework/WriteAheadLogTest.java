@@ -0,0 +1,105 @@
+package guru.springframework;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class WriteAheadLogTest {
+
+    @Test
+    @DisplayName("Should keep the records of a failed background commit and report the failure on the next append")
+    void testBackgroundCommitFailure() throws IOException {
+        // given
+        FileChannel channel = mock(FileChannel.class);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        AtomicBoolean failed = new AtomicBoolean();
+        when(channel.position(anyLong())).thenReturn(channel);
+        when(channel.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            ByteBuffer buffer = invocation.getArgument(0);
+            if (failed.compareAndSet(false, true)) {
+                buffer.get(new byte[3]); // A torn write
+                throw new IOException("Disk full");
+            }
+            int length = buffer.remaining();
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            written.write(bytes);
+            return length;
+        });
+        Person person = new Person("John", "Doe", "123 456 789");
+        int addRecordSize = 8 + WriteAheadLog.encodeAdd(person).length;
+        int removeRecordSize = 8 + 1 + 8;
+
+        try (WriteAheadLog log = new WriteAheadLog(channel, 10)) {
+            // when
+            log.contactAdded(person);
+            verify(channel, timeout(5000).atLeast(2)).write(any(ByteBuffer.class));
+            UncheckedIOException reported = assertThrows(UncheckedIOException.class, () -> log.contactRemoved(person));
+            log.sync();
+
+            // then
+            assertEquals("Disk full", reported.getCause().getCause().getMessage());
+            assertEquals(addRecordSize - 3 + removeRecordSize, written.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should report a failed background commit from sync and still close the channel")
+    void testFailureReportedBySync() throws IOException {
+        // given
+        FileChannel channel = mock(FileChannel.class);
+        when(channel.position(anyLong())).thenReturn(channel);
+        when(channel.write(any(ByteBuffer.class))).thenThrow(new IOException("Disk full"));
+        WriteAheadLog log = new WriteAheadLog(channel, 10);
+
+        // when
+        log.contactAdded(new Person("John", "Doe", "123 456 789"));
+        verify(channel, timeout(5000).atLeast(2)).write(any(ByteBuffer.class));
+
+        // then
+        assertThrows(IOException.class, log::sync);
+        assertThrows(IOException.class, log::close);
+        verify(channel).close();
+    }
+
+    @Test
+    @DisplayName("Should keep the changes made between writing a snapshot and truncating the log")
+    void testTruncateKeepsLaterChanges(@TempDir Path directory) throws IOException {
+        // given
+        PhoneBook phoneBook = new PhoneBook();
+        WriteAheadLog log = new WriteAheadLog(directory.resolve(PhoneBookStorage.LOG_FILE), 10);
+        phoneBook.addListener(log);
+        Person john = new Person("John", "Doe", "123 456 789");
+        phoneBook.addContact(john);
+        phoneBook.addContact(new Person("Jane", "Roe", "987 654 321"));
+
+        // when
+        long snapshotStart = log.end();
+        phoneBook.writeSnapshot(directory.resolve(PhoneBookStorage.SNAPSHOT_FILE));
+        john.updateField("surname", "Smith");
+        phoneBook.addContact(new Person("Mary", "Major", "555 555"));
+        log.truncate(snapshotStart);
+        log.close();
+
+        // then
+        try (PhoneBookStorage storage = PhoneBookStorage.open(directory)) {
+            PhoneBook restored = storage.getPhoneBook();
+            assertEquals(3, restored.count());
+            assertEquals("Smith", restored.getContact(0).getFieldValue("surname"));
+            assertEquals("Mary", restored.getContact(2).getFieldValue("name"));
+        }
+    }
+}